@@ -0,0 +1,157 @@
+package assets.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import contract.wrapper.Operation;
+import io.LogJson;
+import io.OperationAdapter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares decoding the log body through a JSON tree ({@link LogJson#toOperation}) with
+ * the streaming {@link OperationAdapter}. The body of {@code testing/many_vars.json} is
+ * repeated to create a large log.<br>
+ * <br>
+ * Usage: {@code AdapterBenchmark [log] [scale]}. Defaults to
+ * {@code src/main/resources/testing/many_vars.json} repeated 500 times.
+ */
+public abstract class AdapterBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private AdapterBenchmark () {
+    } // Not to be instantiated.
+
+    public static void main (String[] args) throws IOException {
+        File log = new File(args.length > 0 ? args[0] : "src/main/resources/testing/many_vars.json");
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        File file = File.createTempFile("adapter_benchmark", ".json");
+        file.deleteOnExit();
+        scale(log, file, scale);
+        double mb = file.length() / (1024.0 * 1024.0);
+        System.out.printf("File: %s x%d (%.1f MB)%n", log.getName(), scale, mb);
+
+        report("tree", new TreeDecoder(), file, mb);
+        report("adapter", new AdapterDecoder(), file, mb);
+    }
+
+    /**
+     * Write {@code log} to {@code target}, with its body repeated {@code scale} times.
+     */
+    private static void scale (File log, File target, int scale) throws IOException {
+        JsonObject root;
+        try (Reader in = new InputStreamReader(new FileInputStream(log), StandardCharsets.UTF_8)) {
+            root = new JsonParser().parse(in).getAsJsonObject();
+        }
+        JsonArray body = root.getAsJsonArray(LogJson.BODY);
+        Gson gson = new Gson();
+
+        try (JsonWriter out = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8), 1 << 16))) {
+            out.beginObject();
+            out.name(LogJson.HEADER);
+            gson.toJson(root.get(LogJson.HEADER), out);
+            out.name(LogJson.BODY).beginArray();
+            for (int i = 0; i < scale; i++) {
+                for (JsonElement op : body) {
+                    gson.toJson(op, out);
+                }
+            }
+            out.endArray();
+            out.endObject();
+        }
+    }
+
+    private static void report (String name, Decoder decoder, File file, double mb) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocation = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            decode(decoder, file);
+        }
+
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        int count = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long allocated = allocation != null ? allocation.getCurrentThreadAllocatedBytes() : 0;
+            long start = System.nanoTime();
+            count = decode(decoder, file);
+            best = Math.min(best, System.nanoTime() - start);
+            if (allocation != null) {
+                bytes = allocation.getCurrentThreadAllocatedBytes() - allocated;
+            }
+        }
+
+        System.out.printf("%-8s %8.1f MB/s %10.0f ops/ms %8d bytes/op%n", name, mb / (best / 1e9),
+                count / (best / 1e6), count > 0 ? bytes / count : 0);
+    }
+
+    private static int decode (Decoder decoder, File file) throws IOException {
+        int count = 0;
+        try (JsonReader in = new JsonReader(new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (LogJson.BODY.equals(in.nextName())) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (decoder.decode(in) != null) {
+                            count++;
+                        }
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        return count;
+    }
+
+    /**
+     * Decodes a single operation.
+     */
+    private interface Decoder {
+        Operation decode (JsonReader in) throws IOException;
+    }
+
+    private static class TreeDecoder implements Decoder {
+        private final JsonParser parser = new JsonParser();
+
+        @Override
+        public Operation decode (JsonReader in) {
+            return LogJson.toOperation(parser.parse(in).getAsJsonObject());
+        }
+    }
+
+    private static class AdapterDecoder implements Decoder {
+        private final OperationAdapter adapter = new OperationAdapter();
+
+        @Override
+        public Operation decode (JsonReader in) throws IOException {
+            return adapter.read(in);
+        }
+    }
+}
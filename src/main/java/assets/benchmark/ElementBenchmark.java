@@ -0,0 +1,145 @@
+package assets.benchmark;
+
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import render.element.AVElement;
+import render.element.RectangleElement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the cost of creating array elements: loading the layout from
+ * {@link AVElement#URL} for every element, as elements used to, compared with the
+ * code-built elements. Each variant is measured both for creation alone and for creation
+ * followed by the first CSS and layout pass in a scene.<br>
+ * <br>
+ * Usage: {@code ElementBenchmark [elements]}. Defaults to 5000 elements.
+ */
+public abstract class ElementBenchmark {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    private ElementBenchmark () {
+    } // Not to be instantiated.
+
+    public static void main (String[] args) throws InterruptedException {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+        new JFXPanel(); // Start the toolkit.
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                System.out.println("Elements: " + count);
+                report("fxml", new FxmlFactory(), count);
+                report("code", new CodeFactory(), count);
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    private static void report (String name, Factory factory, int count) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(factory, count, false);
+            run(factory, count, true);
+        }
+        long create = Long.MAX_VALUE;
+        long layout = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            create = Math.min(create, run(factory, count, false));
+            layout = Math.min(layout, run(factory, count, true));
+        }
+        System.out.printf("%-5s create: %7.1f ms (%6.2f us/element), create + layout: %7.1f ms (%6.2f us/element)%n",
+                name, create / 1e6, create / 1e3 / count, layout / 1e6, layout / 1e3 / count);
+    }
+
+    /**
+     * Create {@code count} elements, optionally laying them out in a scene. Returns the
+     * elapsed time in nanoseconds.
+     */
+    private static long run (Factory factory, int count, boolean layout) {
+        long start = System.nanoTime();
+        List<Node> nodes = new ArrayList<Node>(count);
+        for (int i = 0; i < count; i++) {
+            Node node = factory.create(i);
+            node.setLayoutX((i % 100) * 40);
+            node.setLayoutY((i / 100) * 40);
+            nodes.add(node);
+        }
+        if (layout) {
+            Pane pane = new Pane();
+            pane.getChildren().addAll(nodes);
+            new Scene(pane, 4000, 40 * (count / 100 + 1));
+            pane.applyCss();
+            pane.layout();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    private interface Factory {
+
+        Node create (int index);
+    }
+
+    /**
+     * Loads the element layout from FXML, the way elements were previously created.
+     */
+    private static class FxmlFactory implements Factory {
+
+        @Override
+        public Node create (int index) {
+            FXMLLoader fxmlLoader = new FXMLLoader(AVElement.class.getResource(AVElement.URL));
+            fxmlLoader.setController(new FxmlController());
+            try {
+                return fxmlLoader.load();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates code-built elements.
+     */
+    private static class CodeFactory implements Factory {
+
+        @Override
+        public Node create (int index) {
+            return new RectangleElement(index, Color.LIGHTBLUE, 40, 40);
+        }
+    }
+
+    /**
+     * Receives the mouse events declared in the FXML layout.
+     */
+    public static class FxmlController {
+
+        public void onMouseClicked () {
+        }
+
+        public void onMouseEntered () {
+        }
+
+        public void onMouseExited () {
+        }
+    }
+}
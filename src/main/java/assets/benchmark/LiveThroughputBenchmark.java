@@ -0,0 +1,132 @@
+package assets.benchmark;
+
+import io.LiveStream;
+import io.LoopbackCommunicator;
+import io.RingBuffer;
+import model.ExecutionModel;
+import model.ModelLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Measures live ingestion without networking. A log is replayed through a
+ * {@link LoopbackCommunicator} into the ordered merge of a {@link LiveStream}, which is
+ * drained once per simulated frame and appended to a model, as the GUI does. Reports
+ * sustained throughput and the latency from sending a message until its operations have
+ * been appended.<br>
+ * <br>
+ * Usage: {@code LiveThroughputBenchmark [operations|log] [opsPerSecond] [messageSize]
+ * [BLOCK|DROP_OLDEST|SPILL]}. Defaults to a generated log of one million operations,
+ * replayed as fast as possible in messages of
+ * {@value io.LoopbackCommunicator#DEFAULT_MESSAGE_SIZE} operations into a buffer which
+ * blocks when full.
+ */
+public abstract class LiveThroughputBenchmark {
+
+    /**
+     * Time between drains, in milliseconds.
+     */
+    private static final long FRAME_MILLIS = 16;
+
+    private LiveThroughputBenchmark () {
+    } // Not to be instantiated.
+
+    public static void main (String[] args) throws IOException, InterruptedException {
+        File log;
+        if (args.length > 0 && !args[0].matches("\\d+")) {
+            log = new File(args[0]);
+        } else {
+            log = File.createTempFile("live_benchmark", ".json");
+            log.deleteOnExit();
+            LogGenerator.generate(log, args.length > 0 ? Integer.parseInt(args[0]) : 1000000, 42);
+        }
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        int messageSize = args.length > 2 ? Integer.parseInt(args[2]) : LoopbackCommunicator.DEFAULT_MESSAGE_SIZE;
+        RingBuffer.Overflow overflow = args.length > 3 ? RingBuffer.Overflow.valueOf(args[3])
+                : RingBuffer.Overflow.BLOCK;
+
+        System.out.printf("Log: %s (%.1f MB), rate: %s, message size: %d, overflow: %s%n", log.getName(),
+                log.length() / (1024.0 * 1024.0), rate > 0 ? rate + " ops/s" : "unlimited", messageSize, overflow);
+
+        LiveStream stream = new LiveStream(LiveStream.DEFAULT_CAPACITY, overflow);
+        ConcurrentLinkedQueue<long[]> sent = new ConcurrentLinkedQueue<long[]>(); // {last op, time}
+        long[] sentOps = {0};
+
+        LoopbackCommunicator[] loopback = new LoopbackCommunicator[1];
+        loopback[0] = new LoopbackCommunicator(messageType -> {
+            for (LoopbackCommunicator.Message message : loopback[0].pollMessages()) {
+                sentOps[0] += message.getOperations().size();
+                sent.add(new long[]{sentOps[0], message.getSentNanos()});
+                try {
+                    stream.receive(message.getProducer(), message.getSequence(), message.getSentNanos(),
+                            message.getStructures(), message.getSources(), message.getOperations());
+                } catch (IOException | InterruptedException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            }
+        });
+
+        // Consumer: drain once per frame and append, like the FX thread.
+        ModelLoader loader = new ModelLoader(new ExecutionModel());
+        long[] latencies = new long[16];
+        int latencyCount = 0;
+        long received = 0;
+        int frames = 0;
+        int maxBatch = 0;
+
+        long start = System.nanoTime();
+        Thread producer = new Thread(() -> {
+            try {
+                loopback[0].replay(log, rate, messageSize);
+            } catch (IOException | InterruptedException exception) {
+                exception.printStackTrace();
+            }
+        }, "Producer");
+        producer.start();
+
+        while (producer.isAlive() || stream.getBuffer().getQueued() > 0 || stream.getMerge().getQueued() > 0) {
+            Thread.sleep(FRAME_MILLIS);
+            LiveStream.Batch batch = stream.drain();
+            if (batch == null) {
+                continue;
+            }
+            frames++;
+            loader.appendOperations(batch.getOperations());
+            received += batch.getOperations().size();
+            maxBatch = Math.max(maxBatch, batch.getOperations().size());
+
+            long now = System.nanoTime();
+            long[] message;
+            while ((message = sent.peek()) != null && message[0] <= received + stream.getBuffer().getDropped()) {
+                sent.poll();
+                if (latencyCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                }
+                latencies[latencyCount++] = now - message[1];
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        RingBuffer<?> buffer = stream.getBuffer();
+        System.out.printf("Received %d of %d operations in %.2f s: %.0f ops/s%n", received,
+                loopback[0].getSentOperations(), seconds, received / seconds);
+        System.out.printf("Frames: %d, largest batch: %d, dropped: %d, spilled: %d%n", frames, maxBatch,
+                buffer.getDropped(), buffer.getSpilled());
+
+        Arrays.sort(latencies, 0, latencyCount);
+        System.out.printf("Latency (ms): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n", percentile(latencies,
+                latencyCount, 0.50), percentile(latencies, latencyCount, 0.90), percentile(latencies, latencyCount,
+                0.99), percentile(latencies, latencyCount, 1.0));
+    }
+
+    private static double percentile (long[] sorted, int count, double p) {
+        if (count == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, i))] / 1e6;
+    }
+}
@@ -0,0 +1,97 @@
+package assets.benchmark;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import io.LogStreamReader;
+import model.LocatorPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the heap retained per operation by a loaded trace, before and after its
+ * locators have been interned by a {@link LocatorPool}. A synthetic log is generated
+ * using {@link LogGenerator}.<br>
+ * <br>
+ * Usage: {@code LocatorPoolBenchmark [operations]}. Defaults to one million operations.
+ * Run with a heap large enough to hold the trace, for example {@code -Xmx2g}.
+ */
+public abstract class LocatorPoolBenchmark {
+
+    private LocatorPoolBenchmark () {
+    } // Not to be instantiated.
+
+    public static void main (String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        File file = File.createTempFile("locator_benchmark", ".json");
+        file.deleteOnExit();
+        LogGenerator.generate(file, count, 42);
+        System.out.printf("File: %d operations (%.1f MB)%n", count, file.length() / (1024.0 * 1024.0));
+
+        long empty = usedHeap();
+        List<Operation> operations = load(file);
+        long loaded = usedHeap();
+        report("parsed", loaded - empty, operations.size());
+
+        LocatorPool pool = new LocatorPool();
+        long start = System.nanoTime();
+        pool.intern(operations);
+        long elapsed = System.nanoTime() - start;
+        long interned = usedHeap();
+        report("interned", interned - empty, operations.size());
+
+        System.out.printf("Distinct locators: %d, interning took %.0f ms%n", pool.size(), elapsed / 1e6);
+        System.out.println(operations.size() + " " + pool.size()); // Keep both reachable until here.
+    }
+
+    private static List<Operation> load (File file) throws IOException, InterruptedException {
+        List<Operation> operations = new ArrayList<Operation>();
+        new LogStreamReader(file).read(new LogStreamReader.ReadListener() {
+
+            @Override
+            public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+            }
+
+            @Override
+            public void operationsRead (List<Operation> batch) {
+                operations.addAll(batch);
+            }
+
+            @Override
+            public void readFinished (int totalOperations) {
+            }
+
+            @Override
+            public void readFailed (Exception exception) {
+            }
+        });
+        return operations;
+    }
+
+    private static void report (String name, long bytes, int operations) {
+        System.out.printf("%-9s %8.1f MB retained, %6.1f bytes/op%n", name, bytes / (1024.0 * 1024.0),
+                (double) bytes / operations);
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage until it no longer shrinks.
+     */
+    private static long usedHeap () throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,99 @@
+package assets.benchmark;
+
+import com.google.gson.stream.JsonWriter;
+import io.LogJson;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates synthetic logs of arbitrary size for benchmarking. The logs contain a few
+ * arrays and a body of random read, write and swap operations on them.
+ */
+public abstract class LogGenerator {
+
+    private static final String[] IDENTIFIERS = {"a1", "a2", "a3", "a4"};
+    private static final int ARRAY_SIZE = 100;
+
+    private LogGenerator () {
+    } // Not to be instantiated.
+
+    /**
+     * Write a log containing {@code operations} operations to {@code file}.
+     *
+     * @param file The file to write.
+     * @param operations The number of operations in the body.
+     * @param seed The seed for the random generator.
+     * @throws IOException If the file could not be written.
+     */
+    public static void generate (File file, int operations, long seed) throws IOException {
+        Random random = new Random(seed);
+
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+            writer.beginObject();
+
+            writer.name(LogJson.HEADER).beginObject();
+            writer.name(LogJson.VERSION).value(2);
+            writer.name(LogJson.ANNOTATED_VARIABLES).beginObject();
+            for (String id : IDENTIFIERS) {
+                writer.name(id).beginObject();
+                writer.name(LogJson.IDENTIFIER).value(id);
+                writer.name(LogJson.RAW_TYPE).value("array");
+                writer.name(LogJson.VISUAL).value("bar");
+                writer.name(LogJson.ATTRIBUTES).beginObject();
+                writer.name("size").beginArray().value(ARRAY_SIZE).endArray();
+                writer.endObject();
+                writer.endObject();
+            }
+            writer.endObject();
+            writer.endObject();
+
+            writer.name(LogJson.BODY).beginArray();
+            for (int i = 0; i < operations; i++) {
+                writeOperation(writer, random, i);
+            }
+            writer.endArray();
+
+            writer.endObject();
+        }
+    }
+
+    private static void writeOperation (JsonWriter writer, Random random, int line) throws IOException {
+        int kind = random.nextInt(3);
+
+        writer.beginObject();
+        if (kind == 2) {
+            writer.name(LogJson.OPERATION).value("swap");
+            writer.name(LogJson.OPERATION_BODY).beginObject();
+            writeLocator(writer, LogJson.VAR1, random);
+            writeLocator(writer, LogJson.VAR2, random);
+            writer.name(LogJson.VALUE).beginArray().value(random.nextInt(1000)).value(random.nextInt(1000))
+                    .endArray();
+            writer.endObject();
+        } else {
+            writer.name(LogJson.OPERATION).value(kind == 0 ? "read" : "write");
+            writer.name(LogJson.OPERATION_BODY).beginObject();
+            writeLocator(writer, LogJson.SOURCE, random);
+            writeLocator(writer, LogJson.TARGET, random);
+            writer.name(LogJson.VALUE).beginArray().value(random.nextInt(1000)).endArray();
+            writer.endObject();
+        }
+        writer.name(LogJson.SOURCE).value("Generated.java");
+        writer.name(LogJson.BEGIN_LINE).value(line);
+        writer.name(LogJson.END_LINE).value(line);
+        writer.endObject();
+    }
+
+    private static void writeLocator (JsonWriter writer, String name, Random random) throws IOException {
+        writer.name(name).beginObject();
+        writer.name(LogJson.IDENTIFIER).value(IDENTIFIERS[random.nextInt(IDENTIFIERS.length)]);
+        writer.name(LogJson.INDEX).beginArray().value(random.nextInt(ARRAY_SIZE)).endArray();
+        writer.endObject();
+    }
+}
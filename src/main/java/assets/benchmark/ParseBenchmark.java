@@ -0,0 +1,98 @@
+package assets.benchmark;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import io.LogStreamReader;
+import io.ParallelLogReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares sequential and parallel parsing of a large log. Reports throughput in MB/s
+ * for the sequential {@link LogStreamReader} and for {@link ParallelLogReader} with 1, 2,
+ * 4, ... cores, up to the number of available processors.<br>
+ * <br>
+ * Usage: {@code ParseBenchmark [file] [operations]}. If the file does not exist, a
+ * synthetic log with the given number of operations (default 2,000,000) is generated.
+ */
+public abstract class ParseBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private ParseBenchmark () {
+    } // Not to be instantiated.
+
+    public static void main (String[] args) throws IOException, InterruptedException {
+        File file = new File(args.length > 0 ? args[0] : "benchmark.json");
+        if (!file.exists()) {
+            int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+            System.out.println("Generating " + operations + " operations: " + file);
+            LogGenerator.generate(file, operations, 0);
+        }
+        double mb = file.length() / (1024.0 * 1024.0);
+        System.out.printf("File: %s (%.1f MB)%n", file, mb);
+
+        double sequential = measure(new LogStreamReader(file), mb);
+        System.out.printf("sequential: %8.1f MB/s%n", sequential);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int cores = 1; cores <= processors; cores *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(cores);
+            try {
+                double parallel = measure(new ParallelLogReader(file, pool, ParallelLogReader.DEFAULT_CHUNK_BYTES),
+                        mb);
+                System.out.printf("%2d core(s): %8.1f MB/s (x%.2f)%n", cores, parallel, parallel / sequential);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns the best throughput of {@link #MEASURED_RUNS} runs, in MB/s.
+     */
+    private static double measure (LogStreamReader reader, double mb) throws IOException, InterruptedException {
+        CountingListener listener = new CountingListener();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            reader.read(listener);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            reader.read(listener);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return mb / (best / 1e9);
+    }
+
+    /**
+     * Counts operations without keeping them.
+     */
+    private static class CountingListener implements LogStreamReader.ReadListener {
+
+        private long count;
+
+        @Override
+        public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+        }
+
+        @Override
+        public void operationsRead (List<Operation> operations) {
+            count += operations.size();
+        }
+
+        @Override
+        public void readFinished (int totalOperations) {
+        }
+
+        @Override
+        public void readFailed (Exception exception) {
+        }
+    }
+}
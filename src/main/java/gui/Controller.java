@@ -12,12 +12,28 @@ import contract.io.JGroupCommunicator;
 import contract.io.LogStreamManager;
 import contract.wrapper.Operation;
 import gui.dialog.ExamplesDialog;
+import gui.dialog.IdentifierCollisionDialog;
 import gui.dialog.VisualDialog;
 import gui.panel.SourcePanel;
 import gui.view.ConnectedView;
 import gui.view.HelpView;
 import gui.view.InterpreterView;
 import interpreter.Interpreter;
+import io.BinaryLog;
+import io.BinaryLogReader;
+import io.IndexedLog;
+import io.LiveStream;
+import io.LogFollower;
+import io.LogIndex;
+import io.LogStreamReader;
+import io.LogStreamWriter;
+import io.LoopbackCommunicator;
+import io.MultiLogReader;
+import io.ParallelLogReader;
+import io.RandomAccessLog;
+import io.RingBuffer;
+import io.TraceCache;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.collections.ObservableMap;
 import javafx.event.Event;
@@ -26,8 +42,10 @@ import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.input.DragEvent;
 import javafx.scene.input.Dragboard;
@@ -36,8 +54,10 @@ import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.ExecutionModel;
+import model.ModelController;
 import model.ModelLoader;
 import render.Visualization;
+import render.assets.CatchUp;
 import render.assets.VisualController;
 
 import java.io.File;
@@ -48,7 +68,10 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Controller implements ComListener {
 
@@ -72,6 +95,29 @@ public class Controller implements ComListener {
     // Views, panels, dialogs
     private final SourcePanel sourcePanel;
     private final ConnectedView connectedView;
+    // Snapshots of previously opened logs
+    private final TraceCache traceCache = new TraceCache();
+    // Settings
+    private boolean parallelLoading = true;
+    private boolean pinToTail = true;
+    // The log being followed, if any
+    private LogFollower follower;
+    // Live stream ingestion
+    private final LiveStream liveStream = new LiveStream();
+    private long liveDropped;
+    private long liveGaps;
+    // Set while a batch declaring structures waits to be committed outside the pulse
+    private boolean liveCommitPending;
+    // Loopbacks still replaying, and the number started so far (names their producers)
+    private final List<LoopbackCommunicator> loopbacks = new CopyOnWriteArrayList<LoopbackCommunicator>();
+    private int loopbackCount;
+    private boolean liveSession;
+    private final CatchUp catchUp;
+
+    /**
+     * Number of operations loaded by {@link #openTailChooser()}.
+     */
+    private static final int TAIL_SIZE = 10000;
 
     // ============================================================= //
     /*
@@ -89,6 +135,8 @@ public class Controller implements ComListener {
         execModel = visualController.getModelController().getModel();
         visualization = visualController.getVisualization();
         modelLoader = new ModelLoader(execModel);
+        catchUp = new CatchUp(visualController);
+        catchUp.setEnabled(pinToTail);
 
         visualization.setAnimationTime(render.assets.Const.DEFAULT_ANIMATION_TIME);
 
@@ -98,6 +146,17 @@ public class Controller implements ComListener {
 
         connectedView = new ConnectedView(primaryStage, (JGroupCommunicator) lsm.getCommunicator());
         this.sourcePanel = sourcePanel;
+
+        // Commit streamed data at most once per frame, and keep the display close to it.
+        new AnimationTimer() {
+            @Override
+            public void handle (long now) {
+                drainLiveStream();
+                if (liveSession || follower != null) {
+                    catchUp.frame(now);
+                }
+            }
+        }.start();
     }
 
     // ============================================================= //
@@ -156,6 +215,10 @@ public class Controller implements ComListener {
      * Used for closing the GUI properly.
      */
     public void closeProgram () {
+        stopFollowing();
+        for (LoopbackCommunicator loopback : loopbacks) {
+            loopback.stop();
+        }
         lsm.close();
         primaryStage.close();
     }
@@ -168,6 +231,8 @@ public class Controller implements ComListener {
         fc.setInitialDirectory(new File(System.getProperty("user.home")));
         fc.setTitle("Open Log File");
         fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON-Files", "*.json"),
+                new FileChooser.ExtensionFilter("Compressed JSON-Files", "*.json" + LogStreamReader.GZIP_EXTENSION),
+                new FileChooser.ExtensionFilter("Binary Traces", "*" + BinaryLog.EXTENSION),
                 new FileChooser.ExtensionFilter("All Files", "*.*"));
         File source = fc.showOpenDialog(primaryStage);
         if (source != null) {
@@ -176,12 +241,222 @@ public class Controller implements ComListener {
         }
     }
 
+    /**
+     * Used for choosing a file and showing only its last operations.
+     */
+    public void openTailChooser () {
+        FileChooser fc = new FileChooser();
+        fc.setInitialDirectory(new File(System.getProperty("user.home")));
+        fc.setTitle("Open Log Tail");
+        fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON-Files", "*.json"),
+                new FileChooser.ExtensionFilter("Binary Traces", "*" + BinaryLog.EXTENSION),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File source = fc.showOpenDialog(primaryStage);
+        if (source != null) {
+            primaryStage.setTitle(Const.PROJECT_NAME + " - " + source + " (operations only)");
+            readLogTail(source, TAIL_SIZE);
+        }
+    }
+
+    /**
+     * Used for choosing a log which is still being written, and following it.
+     */
+    public void openFollowChooser () {
+        FileChooser fc = new FileChooser();
+        fc.setInitialDirectory(new File(System.getProperty("user.home")));
+        fc.setTitle("Follow Log File");
+        fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON-Files", "*.json"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File source = fc.showOpenDialog(primaryStage);
+        if (source != null) {
+            primaryStage.setTitle(Const.PROJECT_NAME + " - " + source + " (following)");
+            followLog(source);
+        }
+    }
+
+    /**
+     * Follow a log which is still being written. Operations are appended to the model as
+     * soon as they have been written, without resetting it. If pinned to the tail, the
+     * model is played forward whenever new operations arrive.
+     *
+     * @param file The file to follow.
+     */
+    public void followLog (File file) {
+        stopFollowing();
+
+        Main.console.info("Following log: " + file);
+        follower = new LogFollower(file);
+        follower.start(new LogStreamReader.ReadListener() {
+
+            @Override
+            public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+                if (!modelLoader.insertStructuresIntoLiveModel(structs)) {
+                    stopFollowing();
+                    Main.console.err("Import aborted: " + file);
+                    return;
+                }
+                sourcePanel.addSources(sources);
+                visualization.clearAndCreateVisuals();
+                loadVisualMenu();
+            }
+
+            @Override
+            public void operationsRead (List<Operation> operations) {
+                appendToLiveModel(operations);
+                if (pinToTail) {
+                    playToTail();
+                }
+            }
+
+            @Override
+            public void readFinished (int totalOperations) {
+                Main.console.info("Log closed by writer: " + file + " (" + totalOperations + " operations)");
+                stopFollowing();
+            }
+
+            @Override
+            public void readFailed (Exception exception) {
+                Main.console.err("Failed to follow log: " + exception.getMessage());
+                stopFollowing();
+            }
+        });
+    }
+
+    /**
+     * Append operations to the live model, and rebuild the visuals if structures had to be
+     * created for them.
+     *
+     * @param ops The operations to append.
+     */
+    private void appendToLiveModel (List<Operation> ops) {
+        if (modelLoader.appendOperations(ops)) {
+            visualization.clearAndCreateVisuals();
+            loadVisualMenu();
+        }
+    }
+
+    /**
+     * Stop following the current log, if any.
+     */
+    public void stopFollowing () {
+        if (follower != null) {
+            follower.stop();
+            Main.console.info("Stopped following log: " + follower.getFile());
+            follower = null;
+        }
+    }
+
+    /**
+     * Show the first new operation at once, and resume auto execution for the rest unless
+     * it is already running. Does nothing while catching up, since {@link CatchUp} is in
+     * control of the playback then.
+     */
+    private void playToTail () {
+        ModelController modelController = visualController.getModelController();
+        if (catchUp.isActive() || modelController.autoExecutingProperty().get() || !execModel.tryExecuteNext()) {
+            return;
+        }
+        visualController.executeNext();
+        if (execModel.tryExecuteNext()) {
+            modelController.startAutoExecution();
+        }
+    }
+
+    /**
+     * Read the last operations of a log. JSON logs are indexed on first use, after which
+     * any part of the log can be read without parsing the operations before it.<br>
+     * <br>
+     * The operations are applied to the structures as declared, since there are no
+     * checkpoints of the values at {@code from}. Values shown are therefore not those of
+     * the traced program; only the operations themselves are.
+     *
+     * @param file The file to load.
+     * @param count The maximum number of operations to load.
+     */
+    public void readLogTail (File file, int count) {
+        Main.console.info("Reading tail of log: " + file);
+        Thread thread = new Thread(() -> {
+            try {
+                RandomAccessLog log = BinaryLog.isBinaryLog(file) ? BinaryLog.open(file) : IndexedLog.open(file);
+                Map<String, DataStructure> structs = log.getStructures();
+                Map<String, List<String>> sources = log.getSources();
+                int from = Math.max(0, log.size() - count);
+                List<Operation> ops = log.getOperations(from, log.size());
+
+                Platform.runLater(() -> {
+                    if (!modelLoader.insertStructuresIntoLiveModel(structs)) {
+                        Main.console.err("Import aborted: " + file);
+                        return;
+                    }
+                    sourcePanel.addSources(sources);
+                    visualization.clearAndCreateVisuals();
+                    loadVisualMenu();
+                    appendToLiveModel(ops);
+                    Main.console.info("Import successful: " + file + " (operations " + from + " to "
+                            + (from + ops.size()) + ")");
+                    if (from > 0) {
+                        Main.console.force("Showing operations only, values not reconstructed: the "
+                                + from + " operations before the tail were not applied.");
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    Main.console.err("Failed to read log: " + e.getMessage());
+                    Main.console.err("Import failed: " + file);
+                });
+            }
+        }, "Log tail reader: " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Helper function for {@link #openFileChooser() openFileChooser}
      *
      * @param file The file to load.
      */
     public void readLog (File file) {
+        stopFollowing();
+
+        if (file.length() < TraceCache.MIN_LOG_SIZE) {
+            readLog(file, null); // Never cached.
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            File cached = traceCache.lookup(file);
+            Platform.runLater(() -> readLog(file, cached));
+        }, "Trace cache lookup: " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Read a log, or its cached snapshot if there is one. A snapshot is loaded the same way
+     * as the log itself would be: streamed if the log would be streamed, and otherwise
+     * loaded at once through the same usage test and collision handling.
+     *
+     * @param file The file to load.
+     * @param cached The snapshot of {@code file}, or {@code null}.
+     */
+    private void readLog (File file, File cached) {
+        boolean streaming = BinaryLog.isBinaryLog(file) || LogStreamReader.isCompressed(file)
+                || file.length() > LogStreamReader.STREAMING_THRESHOLD;
+
+        if (cached != null) {
+            Main.console.info("Using cached trace: " + cached);
+            if (streaming) {
+                readLogStreaming(file, new BinaryLogReader(cached));
+            } else {
+                readSnapshot(file, cached);
+            }
+            return;
+        }
+
+        if (streaming) {
+            readLogStreaming(file);
+            return;
+        }
+
         lsm.clearData();
         boolean success = false;
         try {
@@ -193,11 +468,205 @@ public class Controller implements ComListener {
             loadFromLSM();
             lsm.clearData();
             Main.console.info("Import successful: " + file);
+            traceCache.storeAsync(file);
         } else {
             Main.console.err("Import failed: " + file);
         }
     }
 
+    /**
+     * Read the snapshot of a log in the background, and load it the way
+     * {@link #loadFromLSM()} loads a parsed log.
+     *
+     * @param file The file to report in the console.
+     * @param cached The snapshot of {@code file}.
+     */
+    private void readSnapshot (File file, File cached) {
+        Thread thread = new Thread(() -> {
+            try {
+                BinaryLog log = BinaryLog.open(cached);
+                Map<String, DataStructure> structs = log.getStructures();
+                Map<String, List<String>> sources = log.getSources();
+                List<Operation> ops = log.getOperations(0, log.size());
+
+                Platform.runLater(() -> {
+                    if (!modelLoader.insertIntoLiveModel(structs, ops)) {
+                        Main.console.err("Import aborted: " + file);
+                        return;
+                    }
+                    sourcePanel.addSources(sources);
+                    visualization.clearAndCreateVisuals();
+                    loadVisualMenu();
+                    Main.console.info("Import successful: " + file);
+                });
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    Main.console.err("Failed to read cached trace: " + e.getMessage());
+                    Main.console.err("Import failed: " + file);
+                });
+            }
+        }, "Snapshot reader: " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Read a log in the background, showing the structures as soon as the header has been
+     * read. Operations are appended to the model as they are parsed, so the user can
+     * start stepping through the first operations while the rest are still loading. The
+     * body is parsed on all cores if parallel loading is enabled.
+     *
+     * @param file The file to load.
+     */
+    public void readLogStreaming (File file) {
+        readLogStreaming(file, createReader(file));
+    }
+
+    /**
+     * Read a log in the background using the given reader.
+     *
+     * @param file The file to report in the console.
+     * @param reader The reader to use.
+     */
+    private void readLogStreaming (File file, LogStreamReader reader) {
+
+        Main.console.info("Streaming log: " + file);
+        reader.readAsync(new LogStreamReader.ReadListener() {
+
+            @Override
+            public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+                if (!modelLoader.insertStructuresIntoLiveModel(structs)) {
+                    reader.cancel();
+                    Main.console.err("Import aborted: " + file);
+                    return;
+                }
+                sourcePanel.addSources(sources);
+                visualization.clearAndCreateVisuals();
+                loadVisualMenu();
+            }
+
+            @Override
+            public void operationsRead (List<Operation> operations) {
+                appendToLiveModel(operations);
+            }
+
+            @Override
+            public void readFinished (int totalOperations) {
+                Main.console.info("Import successful: " + file + " (" + totalOperations + " operations)");
+                traceCache.storeAsync(file);
+            }
+
+            @Override
+            public void readFailed (Exception exception) {
+                Main.console.err("Failed to read log: " + exception.getMessage());
+                Main.console.err("Import failed: " + file);
+            }
+        });
+    }
+
+    /**
+     * Read several logs concurrently in the background. The logs are merged and committed
+     * to the model at once, so name collisions are resolved and the visuals rebuilt only
+     * once.
+     *
+     * @param files The files to load.
+     */
+    public void readLogs (List<File> files) {
+        stopFollowing();
+
+        Main.console.info("Importing " + files.size() + " logs.");
+        MultiLogReader reader = new MultiLogReader(files);
+        reader.setCache(traceCache);
+        reader.readAsync(result -> {
+            for (Map.Entry<File, Throwable> failure : result.getFailed().entrySet()) {
+                Main.console.err("Failed to read log: " + failure.getValue().getMessage());
+                Main.console.err("Import failed: " + failure.getKey());
+            }
+            if (result.getRead().isEmpty()) {
+                return;
+            }
+            if (!resolveCollisions(result)) {
+                Main.console.err("Import aborted.");
+                return;
+            }
+            if (!modelLoader.insertIntoLiveModel(result.getStructures(), result.getOperations())) {
+                Main.console.err("Import aborted.");
+                return;
+            }
+            sourcePanel.addSources(result.getSources());
+            visualization.clearAndCreateVisuals();
+            loadVisualMenu();
+            Main.console.info("Import successful: " + result.getRead().size() + " logs ("
+                    + result.getOperations().size() + " operations)");
+            for (File file : result.getRead()) {
+                traceCache.storeAsync(file);
+            }
+        });
+    }
+
+    /**
+     * Resolve all identifier collisions of an import of several logs in a single dialog,
+     * so that {@link ModelLoader#insertIntoLiveModel(Map, List)} finds none left.<br>
+     * <br>
+     * If the logs collide with the live model, the usual choice between clearing the known
+     * structures and rejecting the new ones is offered. Clearing the known structures lets
+     * the last declaration of every identifier win, also between the logs. Otherwise, if
+     * several logs declare the same identifier, the user chooses between the first and the
+     * last declarations.
+     *
+     * @param result The merged logs.
+     * @return {@code false} if the import should be aborted.
+     */
+    private boolean resolveCollisions (MultiLogReader.Result result) {
+        if (!result.getCollisions().isEmpty()) {
+            Main.console.err("Identifiers declared by several logs: " + result.getCollisions().keySet());
+        }
+
+        if (ModelLoader.checkNameCollision(result.getStructures().keySet(), execModel.getDataStructures().keySet())) {
+            if (!modelLoader.resolveNameCollision(result.getStructures())) {
+                return false;
+            }
+            if (!result.getCollisions().isEmpty()) {
+                result.useLaterDeclarations();
+                Main.console.info("Using the last declaration of colliding identifiers.");
+            }
+            return true;
+        }
+        if (result.getCollisions().isEmpty()) {
+            return true;
+        }
+
+        Map<String, DataStructure> first = new HashMap<String, DataStructure>();
+        for (String identifier : result.getCollisions().keySet()) {
+            first.put(identifier, result.getStructures().get(identifier));
+        }
+        IdentifierCollisionDialog icd = new IdentifierCollisionDialog(primaryStage);
+        switch (icd.showDeclarations(first.values(), result.getCollisions().values())) {
+            case IdentifierCollisionDialog.USE_LAST:
+                result.useLaterDeclarations();
+                Main.console.info("Using the last declaration of colliding identifiers.");
+                return true;
+            case IdentifierCollisionDialog.USE_FIRST:
+                Main.console.info("Using the first declaration of colliding identifiers.");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create a reader for a log file, depending on its format and the current settings.
+     *
+     * @param file The file to read.
+     * @return A LogStreamReader for the file.
+     */
+    private LogStreamReader createReader (File file) {
+        if (BinaryLog.isBinaryLog(file)) {
+            return new BinaryLogReader(file);
+        }
+        return parallelLoading ? new ParallelLogReader(file) : new LogStreamReader(file);
+    }
+
     /**
      * Load the current data from LSM. Does not clear any data.
      */
@@ -271,12 +740,174 @@ public class Controller implements ComListener {
             connectedView.update(jgc.getMemberStrings(), jgc.allKnownEntities());
             return;
         }
-        Platform.runLater(() -> {
-            Controller.this.loadFromLSM();
-            Controller.this.lsm.clearData();
+        if (messageType == LoopbackCommunicator.LOOPBACK_MESSAGE) {
+            receiveLoopbacks();
+            return;
+        }
+
+        // Called on the communicator thread. Move the data out of the LSM at once, so that
+        // the next message can be received while the FX thread catches up.
+        try {
+            receive(lsm.getDataStructures(), lsm.getSources(), lsm.getOperations());
+        } finally {
+            lsm.clearData();
+        }
+    }
+
+    /**
+     * Pass streamed data on to the live stream. Called on the communicator thread.
+     */
+    private void receive (Map<String, DataStructure> structs, Map<String, List<String>> sources,
+                          List<Operation> ops) {
+        try {
+            liveStream.receive(structs, sources, ops);
+        } catch (IOException e) {
+            Platform.runLater(() -> Main.console.err("Failed to buffer streamed operations: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Commit everything streamed since the last frame to the model in a single batch. The
+     * visuals are only rebuilt if new structures have been declared.<br>
+     * <br>
+     * Inserting structures may show dialogs, which cannot be shown during animation
+     * processing. Batches with structures are therefore committed by a later
+     * {@link Platform#runLater(Runnable)}, and nothing more is drained until they have been.
+     */
+    private void drainLiveStream () {
+        if (liveCommitPending) {
+            return; // Streamed data stays buffered until the pending batch is committed.
+        }
+        LiveStream.Batch batch;
+        try {
+            batch = liveStream.drain();
+        } catch (IOException e) {
+            Main.console.err("Failed to read spilled operations: " + e.getMessage());
+            return;
+        }
+        if (batch == null) {
+            return;
+        }
+        liveSession = true;
+
+        if (batch.getStructures().isEmpty() && !modelLoader.hasUndeclaredNames(batch.getOperations())) {
+            commitLiveBatch(batch);
+        } else { // May prompt the user, which is not allowed during a pulse.
+            liveCommitPending = true;
+            Platform.runLater(() -> {
+                liveCommitPending = false;
+                commitLiveBatch(batch);
+            });
+        }
+    }
+
+    /**
+     * Commit a batch drained from the live stream. If the user rejects the structures of
+     * the batch, operations on them are dropped and the rest are kept.
+     *
+     * @param batch The batch to commit.
+     */
+    private void commitLiveBatch (LiveStream.Batch batch) {
+        if (batch.getStructures().isEmpty()) {
+            appendToLiveModel(batch.getOperations());
+        } else if (modelLoader.insertIntoLiveModel(batch.getStructures(), batch.getOperations())) {
+            visualization.clearAndCreateVisuals();
+            loadVisualMenu();
+        } else {
+            Main.console.err("Live structures rejected: " + batch.getStructures().keySet()
+                    + ". Operations on them are dropped.");
+            if (modelLoader.appendOperations(batch.getOperations(), batch.getStructures().keySet())) {
+                visualization.clearAndCreateVisuals();
+                loadVisualMenu();
+            }
+        }
+        if (!batch.getSources().isEmpty()) {
+            sourcePanel.addSources(batch.getSources());
+        }
+        if (pinToTail) {
+            playToTail();
+        }
+
+        long dropped = liveStream.getBuffer().getDropped();
+        if (dropped != liveDropped) {
+            Main.console.err("Live stream overflow: " + (dropped - liveDropped) + " operations dropped ("
+                    + dropped + " in total).");
+            liveDropped = dropped;
+        }
+        long gaps = liveStream.getMerge().getGaps();
+        if (gaps != liveGaps) {
+            Main.console.err("Live stream gap: " + (gaps - liveGaps) + " messages missing (" + gaps + " in total).");
+            liveGaps = gaps;
+        }
+    }
+
+    /**
+     * Used for choosing a log to replay through the loopback communicator.
+     */
+    public void openLoopbackChooser () {
+        FileChooser fc = new FileChooser();
+        fc.setInitialDirectory(new File(System.getProperty("user.home")));
+        fc.setTitle("Replay Log");
+        fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON-Files", "*.json"),
+                new FileChooser.ExtensionFilter("Binary Traces", "*" + BinaryLog.EXTENSION),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File source = fc.showOpenDialog(primaryStage);
+        if (source != null) {
+            replayLoopback(source, 0);
+        }
+    }
+
+    /**
+     * Replay a log as if it was streamed from another process. Messages are delivered
+     * through a {@link LoopbackCommunicator}, announced to {@link #messageReceived(short)}
+     * and take the same path through the live stream as messages from a real channel. Every
+     * replay is a separate producer, so concurrent replays are merged in timestamp order.
+     *
+     * @param file The log to replay.
+     * @param opsPerSecond The rate to replay at, or {@code 0} to replay as fast as
+     * possible.
+     */
+    public void replayLoopback (File file, double opsPerSecond) {
+        String producer = file.getName() + "#" + loopbackCount++;
+        LoopbackCommunicator loopback = new LoopbackCommunicator(this, producer);
+        loopbacks.add(loopback);
+        Main.console.info("Replaying log through loopback: " + file + " (producer \"" + producer + "\")");
+        loopback.replayAsync(file, opsPerSecond, LoopbackCommunicator.DEFAULT_MESSAGE_SIZE, exception -> Platform
+                .runLater(() -> Main.console.err("Loopback replay failed: " + exception.getMessage())), () -> {
+            loopbacks.remove(loopback);
+            receive(loopback); // Anything queued after the last drain.
+            liveStream.finish(producer);
         });
     }
 
+    /**
+     * Pass the messages queued by every loopback on to the ordered merge of the live
+     * stream. Called on a replay thread.
+     */
+    private void receiveLoopbacks () {
+        for (LoopbackCommunicator loopback : loopbacks) {
+            receive(loopback);
+        }
+    }
+
+    /**
+     * Pass the messages queued by a loopback on to the ordered merge of the live stream.
+     */
+    private void receive (LoopbackCommunicator loopback) {
+        try {
+            for (LoopbackCommunicator.Message message : loopback.pollMessages()) {
+                liveStream.receive(message.getProducer(), message.getSequence(), message.getSentNanos(),
+                        message.getStructures(), message.getSources(), message.getOperations());
+            }
+        } catch (IOException e) {
+            Platform.runLater(() -> Main.console.err("Failed to buffer streamed operations: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public void openDestinationChooser () {
         FileChooser fc = new FileChooser();
         fc.setInitialDirectory(new File(System.getProperty("user.home")));
@@ -285,23 +916,70 @@ public class Controller implements ComListener {
         Calendar cal = Calendar.getInstance();
         fc.setInitialFileName(dateFormat.format(cal.getTime()));
         fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON-Files", "*.json"),
+                new FileChooser.ExtensionFilter("Compressed JSON-Files", "*.json" + LogStreamReader.GZIP_EXTENSION),
+                new FileChooser.ExtensionFilter("Binary Traces", "*" + BinaryLog.EXTENSION),
                 new FileChooser.ExtensionFilter("All Files", "*.*"));
         File target = fc.showSaveDialog(primaryStage);
-        if (target == null) {
-            return;
-        }
-        lsm.setOperations(execModel.getOperations());
-        lsm.setDataStructures(execModel.getDataStructures());
-        lsm.setSources(sourcePanel.getSources());
-        boolean old = lsm.PRETTY_PRINTING;
-        lsm.PRETTY_PRINTING = execModel.getOperations().size() > 100;
-        try {
-            Main.console.info("Printing log: " + target);
-            lsm.printLog(target);
-        } catch (FileNotFoundException e) {
-            Main.console.err("Printing failed: " + e.getMessage());
+        if (target != null) {
+            printLog(target);
         }
-        lsm.PRETTY_PRINTING = old;
+    }
+
+    /**
+     * Save the current session on a background thread. Operations are serialized straight
+     * from the model, so the window stays responsive and no copy of the log is built in
+     * memory. JSON logs are indexed once they have been written.
+     *
+     * @param target The file to write.
+     */
+    public void printLog (File target) {
+        LogStreamWriter writer = new LogStreamWriter(target, execModel.getDataStructures(), sourcePanel.getSources(),
+                execModel.getOperations());
+
+        Main.console.info("Printing log: " + target);
+        writer.writeAsync(new LogStreamWriter.WriteListener() {
+
+            private int reported;
+
+            @Override
+            public void progress (int written, int total) {
+                int percent = (int) (100L * written / total);
+                if (percent >= reported + 10) {
+                    reported = percent - percent % 10;
+                    Main.console.info("Printing log: " + reported + "%");
+                }
+            }
+
+            @Override
+            public void writeFinished (int written) {
+                Main.console.info("Printing complete: " + target + " (" + written + " operations)");
+                if (!BinaryLog.isBinaryLog(target) && !LogStreamReader.isCompressed(target)) {
+                    createIndex(target);
+                }
+            }
+
+            @Override
+            public void writeFailed (Exception exception) {
+                Main.console.err("Printing failed: " + exception.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Create the seek index of a JSON log on a background thread.
+     *
+     * @param log The log to index.
+     */
+    private void createIndex (File log) {
+        Thread thread = new Thread(() -> {
+            try {
+                LogIndex.create(log, LogIndex.DEFAULT_STRIDE).save();
+            } catch (IOException e) {
+                Platform.runLater(() -> Main.console.err("Indexing failed: " + e.getMessage()));
+            }
+        }, "Log indexer: " + log.getName());
+        thread.setDaemon(true);
+        thread.start();
     }
 
     public void propertiesFailed (Exception exception) {
@@ -341,6 +1019,12 @@ public class Controller implements ComListener {
         debugERR.setSelected(Debug.ERR);
         CheckMenuItem debugOUT = (CheckMenuItem) namespace.get("debugOUT");
         debugOUT.setSelected(Debug.OUT);
+        CheckMenuItem parallelLoading = (CheckMenuItem) namespace.get("parallelLoading");
+        parallelLoading.setSelected(this.parallelLoading);
+        CheckMenuItem pinToTail = (CheckMenuItem) namespace.get("pinToTail");
+        pinToTail.setSelected(this.pinToTail);
+        Label liveStatus = (Label) namespace.get("liveStatus");
+        liveStatus.textProperty().bind(catchUp.statusProperty());
     }
 
     public void showSettings () {
@@ -364,7 +1048,11 @@ public class Controller implements ComListener {
     }
 
     public void clear () {
+        stopFollowing();
+        liveSession = false;
+        catchUp.reset();
         visualController.clear();
+        modelLoader.clear();
     }
 
     /**
@@ -423,8 +1111,10 @@ public class Controller implements ComListener {
         Dragboard db = event.getDragboard();
         boolean hasFiles = db.hasFiles();
         if (hasFiles) {
-            for (File file : db.getFiles()) {
-                readLog(file);
+            if (db.getFiles().size() == 1) {
+                readLog(db.getFiles().get(0));
+            } else {
+                readLogs(db.getFiles());
             }
         }
         event.setDropCompleted(hasFiles);
@@ -452,6 +1142,23 @@ public class Controller implements ComListener {
         Debug.OUT = ((CheckMenuItem) e.getSource()).isSelected();
     }
 
+    public void parallelLoading (Event e) {
+        parallelLoading = ((CheckMenuItem) e.getSource()).isSelected();
+    }
+
+    public void pinToTail (Event e) {
+        pinToTail = ((CheckMenuItem) e.getSource()).isSelected();
+        catchUp.setEnabled(pinToTail);
+    }
+
+    public void liveOverflow (Event e) {
+        RadioMenuItem item = (RadioMenuItem) e.getSource();
+        RingBuffer<Operation> buffer = liveStream.getBuffer();
+        buffer.setOverflow(RingBuffer.Overflow.valueOf((String) item.getUserData()));
+        Main.console.info("Live stream overflow policy: " + buffer.getOverflow() + " (queued: " + buffer.getQueued()
+                + ", dropped: " + buffer.getDropped() + ", spilled: " + buffer.getSpilled() + ")");
+    }
+
     public void markElementXY () {
         render.assets.Tools.markElementXY(visualization);
     }
@@ -4,7 +4,9 @@ import assets.Const;
 import contract.datastructure.DataStructure;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.GridPane;
@@ -21,10 +23,23 @@ public class IdentifierCollisionDialog {
     public static final short CLEAR_OLD = 3;
     public static final short CLEAR_OLD_ALWAYS = 4;
 
+    /**
+     * Answers of {@link #showDeclarations(Collection, Collection)}.
+     */
+    public static final short USE_FIRST = 5;
+    public static final short USE_LAST = 6;
+    public static final short ABORT = 7;
+
     private short answer;
     private final TextField oldStructs, newStructs;
     private final CheckBox memory;
+    private final Label heading, message, oldLabel, newLabel;
+    private final Button rejectOld, keepOld;
     private final Stage root;
+    /**
+     * True while choosing between declarations rather than between known and new structures.
+     */
+    private boolean declarations;
 
     /**
      * Create a new IdentifierCollisionDialog.
@@ -46,13 +61,19 @@ public class IdentifierCollisionDialog {
         }
         root.setOnCloseRequest(event -> {
             event.consume();
-            answer = KEEP_OLD;
+            answer = declarations ? ABORT : KEEP_OLD;
             root.close();
         });
         fxmlLoader.getNamespace();
         oldStructs = (TextField) fxmlLoader.getNamespace().get("oldStructs");
         newStructs = (TextField) fxmlLoader.getNamespace().get("newStructs");
         memory = (CheckBox) fxmlLoader.getNamespace().get("memory");
+        heading = (Label) fxmlLoader.getNamespace().get("heading");
+        message = (Label) fxmlLoader.getNamespace().get("message");
+        oldLabel = (Label) fxmlLoader.getNamespace().get("oldLabel");
+        newLabel = (Label) fxmlLoader.getNamespace().get("newLabel");
+        rejectOld = (Button) fxmlLoader.getNamespace().get("rejectOld");
+        keepOld = (Button) fxmlLoader.getNamespace().get("keepOld");
         Scene dialogScene = new Scene(p, p.getPrefWidth() - 5, p.getPrefHeight());
         root.setScene(dialogScene);
         root.setResizable(false);
@@ -71,11 +92,36 @@ public class IdentifierCollisionDialog {
         return answer;
     }
 
+    /**
+     * Show the dialog for identifiers declared by several logs imported together. The
+     * choice is never remembered.
+     *
+     * @param first The first declaration of every colliding identifier.
+     * @param last The last declaration of every colliding identifier.
+     * @return {@link #USE_FIRST}, {@link #USE_LAST} or {@link #ABORT}.
+     */
+    public short showDeclarations (Collection<DataStructure> first, Collection<DataStructure> last) {
+        declarations = true;
+        heading.setText("Identifier Declared by Several Logs");
+        message.setText("One or more identifiers are declared by more than one of the logs being imported. "
+                + "Which declarations would you like to use? Close the dialog to cancel the import.");
+        oldLabel.setText("First:");
+        newLabel.setText("Last:");
+        rejectOld.setText("Use Last");
+        keepOld.setText("Use First");
+        keepOld.setCancelButton(false);
+        memory.setVisible(false);
+        answer = ABORT;
+        return show(first, last);
+    }
+
     /**
      * FXML Listener method.
      */
     public void reject_old () {
-        if (memory.isSelected()) {
+        if (declarations) {
+            answer = USE_LAST;
+        } else if (memory.isSelected()) {
             answer = CLEAR_OLD_ALWAYS;
         } else {
             answer = CLEAR_OLD;
@@ -87,7 +133,9 @@ public class IdentifierCollisionDialog {
      * FXML Listener method.
      */
     public void keep_old () {
-        if (memory.isSelected()) {
+        if (declarations) {
+            answer = USE_FIRST;
+        } else if (memory.isSelected()) {
             answer = KEEP_OLD_ALWAYS;
         } else {
             answer = KEEP_OLD;
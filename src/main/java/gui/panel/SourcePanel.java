@@ -1,12 +1,15 @@
 package gui.panel;
 
 import contract.wrapper.Operation;
+import io.SourceStore;
+import javafx.collections.FXCollections;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,8 +21,8 @@ import java.util.Map;
  */
 public class SourcePanel extends TabPane {
 
-    private final HashMap<String, Integer> nameTabMapping;
-    private final Map<String, List<String>> sources;
+    private final HashMap<String, Tab> nameTabMapping;
+    private final Map<String, SourceStore> sources;
     private boolean initTabs = true;
     private double divPos = 0;
 
@@ -27,8 +30,8 @@ public class SourcePanel extends TabPane {
      * Create a new SourceViewer.
      */
     public SourcePanel () {
-        nameTabMapping = new HashMap<String, Integer>();
-        sources = new HashMap<String, List<String>>();
+        nameTabMapping = new HashMap<String, Tab>();
+        sources = new LinkedHashMap<String, SourceStore>();
         prefHeightProperty().bind(heightProperty());
         prefWidthProperty().bind(widthProperty());
         setTabClosingPolicy(TabPane.TabClosingPolicy.SELECTED_TAB);
@@ -39,7 +42,8 @@ public class SourcePanel extends TabPane {
     }
 
     /**
-     * Add sources which are to be displayed by this SourceViewer.
+     * Add sources which are to be displayed by this SourceViewer. Tabs are only created
+     * for sources which are not already shown; known sources have their content replaced.
      *
      * @param newSources The sources to display.
      */
@@ -51,11 +55,17 @@ public class SourcePanel extends TabPane {
             initTabs = false;
             clear();
         }
-        sources.putAll(newSources);
-        int tabNumber = 0;
-        for (String sourceName : sources.keySet()) {
-            addSourceTab(sourceName, sources.get(sourceName));
-            nameTabMapping.put(sourceName, tabNumber++);
+        for (Map.Entry<String, List<String>> entry : newSources.entrySet()) {
+            String sourceName = entry.getKey();
+            SourceStore store = SourceStore.of(entry.getValue());
+            sources.put(sourceName, store);
+
+            Tab tab = nameTabMapping.get(sourceName);
+            if (tab == null) {
+                nameTabMapping.put(sourceName, addSourceTab(sourceName, store));
+            } else {
+                tab.setContent(createLinesView(store));
+            }
         }
     }
 
@@ -64,6 +74,7 @@ public class SourcePanel extends TabPane {
      */
     public void clear () {
         sources.clear();
+        nameTabMapping.clear();
         getTabs().clear();
         SplitPane sp = (SplitPane) getParent().getParent().getParent();
         divPos = sp.getDividerPositions()[0];
@@ -74,23 +85,34 @@ public class SourcePanel extends TabPane {
      * Create a tab for a source file.
      *
      * @param sourceName The name of the source file.
-     * @param sourceLines The lines for the source file.
+     * @param store The lines for the source file.
+     * @return The new tab.
      */
-    private void addSourceTab (String sourceName, List<String> sourceLines) {
+    private Tab addSourceTab (String sourceName, SourceStore store) {
         // Build new Tab
         Tab newTab = new Tab();
         newTab.setText(sourceName);
-        // Build ListView
-        ListView<String> linesView = new ListView<String>();
-        linesView.setEditable(false);
-        linesView.getItems().addAll(sourceLines);
-        linesView.prefHeightProperty().bind(heightProperty());
-        linesView.prefWidthProperty().bind(widthProperty());
         // Add children
-        newTab.setContent(linesView);
+        newTab.setContent(createLinesView(store));
         getTabs().add(newTab);
         SplitPane sp = (SplitPane) getParent().getParent().getParent();
         sp.setDividerPosition(0, divPos);
+        return newTab;
+    }
+
+    /**
+     * Create a view for the lines of a source file. The ListView only creates cells for
+     * visible rows, and lines are decoded from the store as the cells ask for them.
+     *
+     * @param store The lines for the source file.
+     * @return A ListView showing the lines.
+     */
+    private ListView<String> createLinesView (SourceStore store) {
+        ListView<String> linesView = new ListView<String>(FXCollections.observableList(store.asList()));
+        linesView.setEditable(false);
+        linesView.prefHeightProperty().bind(heightProperty());
+        linesView.prefWidthProperty().bind(widthProperty());
+        return linesView;
     }
 
     /**
@@ -101,31 +123,39 @@ public class SourcePanel extends TabPane {
      */
     @SuppressWarnings("unchecked")
     public void show (Operation op) {
-        if (op == null || op.source == null) {
+        if (op == null || op.source == null || op.sourceRows == null) {
             return;
         }
-        Integer sourceTabIndex = nameTabMapping.get(op.source);
-        if (sourceTabIndex == null) {
+        Tab sourceTab = nameTabMapping.get(op.source);
+        if (sourceTab == null) {
             System.err.println("Could not find source file \"" + op.source + "\" for Operation: " + op);
             System.err.println("Known sources: " + nameTabMapping.keySet());
             return;
         }
-        // Select tab
-        getSelectionModel().select(sourceTabIndex);
+        // Select tab, reopening it if it has been closed
+        if (!getTabs().contains(sourceTab)) {
+            getTabs().add(sourceTab);
+        }
+        getSelectionModel().select(sourceTab);
         // Select lines
-        ListView<String> linesView = (ListView<String>) getTabs().get(nameTabMapping.get(op.source)).getContent();
+        ListView<String> linesView = (ListView<String>) sourceTab.getContent();
         linesView.getSelectionModel().select(op.sourceRows[0] - 1);
         linesView.getFocusModel().focus(op.sourceRows[0]);
         linesView.scrollTo(op.sourceRows[0] - 1);
     }
 
     /**
-     * Returns the sources held by this SourceViewer.
+     * Returns the sources held by this SourceViewer. The lines are decoded as they are
+     * accessed.
      *
      * @return The sources held by this SourceViewer.
      */
     public Map<String, List<String>> getSources () {
-        return sources;
+        Map<String, List<String>> lines = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, SourceStore> entry : sources.entrySet()) {
+            lines.put(entry.getKey(), entry.getValue().asList());
+        }
+        return lines;
     }
 
     private void initTab () {
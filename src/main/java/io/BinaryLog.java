@@ -0,0 +1,431 @@
+package io;
+
+import contract.datastructure.AbstractType;
+import contract.datastructure.DataStructure;
+import contract.datastructure.RawType;
+import contract.datastructure.VisualType;
+import contract.operation.OP_Message;
+import contract.operation.OP_ReadWrite;
+import contract.operation.OP_Swap;
+import contract.operation.OP_ToggleScope;
+import contract.operation.OperationType;
+import contract.wrapper.Locator;
+import contract.wrapper.Operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A memory-mapped binary trace. Operations are decoded on demand, so opening a trace is
+ * cheap regardless of its size, and any operation can be accessed by index.<br>
+ * <br>
+ * <b>Format</b> (big-endian, written by {@link BinaryLogWriter}):
+ * <ul>
+ * <li>Header, {@link #HEADER_SIZE} bytes: magic, version, operation count, block size and
+ * the offsets of the block index, string table, structures and sources.</li>
+ * <li>Operations, varint encoded. Strings are references into the string table.</li>
+ * <li>Block index: the offset of every {@code blockSize}:th operation.</li>
+ * <li>String table, structures and sources. Sources are stored as UTF-8 text, which is
+ * mapped rather than copied by {@link SourceStore}.</li>
+ * </ul>
+ * Instances are thread safe.
+ */
+public class BinaryLog implements RandomAccessLog {
+
+    /**
+     * File extension of binary traces.
+     */
+    public static final String EXTENSION = ".glog";
+
+    /**
+     * "GLOG" in ASCII.
+     */
+    static final int MAGIC = 0x474C4F47;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    /*
+     * Operation tag. The low three bits hold the operation type.
+     */
+    static final int TYPE_MASK = 0x07;
+    static final int TYPE_READ = 0;
+    static final int TYPE_WRITE = 1;
+    static final int TYPE_SWAP = 2;
+    static final int TYPE_REMOVE = 3;
+    static final int TYPE_MESSAGE = 4;
+    static final int HAS_SOURCE = 1 << 3;
+    static final int HAS_ROWS = 1 << 4;
+    static final int HAS_GROUP = 1 << 5;
+    static final int INTEGRAL_VALUES = 1 << 6;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int blockSize;
+    private final int[] blockOffsets;
+    private final String[] strings;
+    private final int structuresOffset;
+    private final Map<String, List<String>> sources;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    private BinaryLog (File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary trace: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported binary trace version: " + buffer.getInt(4));
+        }
+        size = buffer.getInt(8);
+        blockSize = buffer.getInt(12);
+        int indexOffset = offset(16);
+        int stringsOffset = offset(24);
+        structuresOffset = offset(32);
+        int sourcesOffset = offset(40);
+
+        Decoder in = new Decoder(indexOffset);
+        blockOffsets = new int[in.readVarInt()];
+        for (int i = 0; i < blockOffsets.length; i++) {
+            blockOffsets[i] = (int) buffer.getLong(in.pos);
+            in.pos += 8;
+        }
+
+        in.pos = stringsOffset;
+        strings = new String[in.readVarInt()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = in.readVarInt();
+            byte[] bytes = new byte[length];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(in.pos);
+            dup.get(bytes);
+            in.pos += length;
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        in.pos = sourcesOffset;
+        sources = readSources(in);
+    }
+
+    /**
+     * Memory map a binary trace.
+     *
+     * @param file The file to open.
+     * @return A new BinaryLog.
+     * @throws IOException If the file could not be read or is not a binary trace.
+     */
+    public static BinaryLog open (File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary trace too large to map: " + file);
+            }
+            return new BinaryLog(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code file} appears to be a binary trace, judging by its
+     * name.
+     *
+     * @param file A file.
+     * @return {@code true} if {@code file} has the {@link #EXTENSION} extension.
+     */
+    public static boolean isBinaryLog (File file) {
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the file of this trace.
+     *
+     * @return The file of this trace.
+     */
+    public File getFile () {
+        return file;
+    }
+
+    /**
+     * Returns the number of operations in the trace.
+     *
+     * @return The number of operations in the trace.
+     */
+    @Override
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Returns the annotated variables of the trace. Every call creates new structures.
+     *
+     * @return The annotated variables of the trace.
+     */
+    @Override
+    public Map<String, DataStructure> getStructures () {
+        return readStructures(new Decoder(structuresOffset));
+    }
+
+    /**
+     * Returns the sources of the trace.
+     *
+     * @return The sources of the trace.
+     */
+    @Override
+    public Map<String, List<String>> getSources () {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    /**
+     * Decode a single operation.
+     *
+     * @param index The index of the operation.
+     * @return The operation at {@code index}.
+     */
+    public Operation getOperation (int index) {
+        return getOperations(index, index + 1).get(0);
+    }
+
+    /**
+     * Decode a range of operations.
+     *
+     * @param from The index of the first operation, inclusive.
+     * @param to The index of the last operation, exclusive.
+     * @return The operations in the range.
+     */
+    @Override
+    public List<Operation> getOperations (int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + size);
+        }
+
+        List<Operation> ops = new ArrayList<Operation>(to - from);
+        if (from == to) {
+            return ops;
+        }
+        Decoder in = new Decoder(blockOffsets[from / blockSize]);
+        for (int i = from - from % blockSize; i < from; i++) {
+            in.readOperation(); // Skip to the first operation in the range.
+        }
+        for (int i = from; i < to; i++) {
+            ops.add(in.readOperation());
+        }
+        return ops;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private int offset (int position) throws IOException {
+        long offset = buffer.getLong(position);
+        if (offset < HEADER_SIZE || offset > buffer.limit()) {
+            throw new IOException("Corrupt binary trace: " + file);
+        }
+        return (int) offset;
+    }
+
+    private Map<String, DataStructure> readStructures (Decoder in) {
+        Map<String, DataStructure> structs = new LinkedHashMap<String, DataStructure>();
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            String identifier = in.readString();
+            String rawType = in.readString();
+            String abs = in.readString();
+            String vis = in.readString();
+            String attributes = in.readString();
+
+            Map<String, Object> attributeMap = attributes == null ? new HashMap<String, Object>()
+                    : LogJson.GSON.fromJson(attributes, LogJson.ATTRIBUTES_TYPE);
+            structs.put(identifier, LogJson.createStructure(identifier, RawType.valueOf(rawType),
+                    abs == null ? null : AbstractType.valueOf(abs), vis == null ? null : VisualType.valueOf(vis),
+                    attributeMap));
+        }
+        return structs;
+    }
+
+    private Map<String, List<String>> readSources (Decoder in) {
+        Map<String, List<String>> sources = new LinkedHashMap<String, List<String>>();
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readString();
+            int lines = in.readVarInt();
+            int length = in.readVarInt();
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.position(in.pos);
+            bytes.limit(in.pos + length);
+            in.pos += length;
+            sources.put(name, SourceStore.wrap(bytes, lines).asList());
+        }
+        return sources;
+    }
+
+    /**
+     * Decodes the mapped buffer from a position using absolute gets, so that decoders may
+     * be used concurrently.
+     */
+    private final class Decoder {
+
+        int pos;
+
+        Decoder (int pos) {
+            this.pos = pos;
+        }
+
+        int readVarInt () {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        long readVarLong () {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        int readZigZag () {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString () {
+            int ref = readVarInt();
+            return ref == 0 ? null : strings[ref - 1];
+        }
+
+        Locator readLocator () {
+            int ref = readVarInt();
+            if (ref == 0) {
+                return null;
+            }
+            int length = readVarInt();
+            int[] index = null;
+            if (length > 0) {
+                index = new int[length - 1];
+                for (int i = 0; i < index.length; i++) {
+                    index[i] = readZigZag();
+                }
+            }
+            return new Locator(strings[ref - 1], index);
+        }
+
+        double[] readValues (boolean integral) {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            double[] values = new double[length - 1];
+            for (int i = 0; i < values.length; i++) {
+                if (integral) {
+                    long v = readVarLong();
+                    values[i] = (v >>> 1) ^ -(v & 1);
+                } else {
+                    values[i] = buffer.getDouble(pos);
+                    pos += 8;
+                }
+            }
+            return values;
+        }
+
+        Operation readOperation () {
+            int tag = buffer.get(pos++) & 0xFF;
+            boolean integral = (tag & INTEGRAL_VALUES) != 0;
+
+            Operation op;
+            switch (tag & TYPE_MASK) {
+                case TYPE_READ:
+                case TYPE_WRITE:
+                    OP_ReadWrite rw = new OP_ReadWrite(
+                            (tag & TYPE_MASK) == TYPE_READ ? OperationType.read : OperationType.write);
+                    rw.setSource(readLocator());
+                    rw.setTarget(readLocator());
+                    rw.setValue(readValues(integral));
+                    op = rw;
+                    break;
+                case TYPE_SWAP:
+                    OP_Swap swap = new OP_Swap();
+                    swap.setVar1(readLocator());
+                    swap.setVar2(readLocator());
+                    swap.setValue(readValues(integral));
+                    op = swap;
+                    break;
+                case TYPE_REMOVE:
+                    OP_ToggleScope toggleScope = new OP_ToggleScope();
+                    toggleScope.setTarget(readLocator());
+                    op = toggleScope;
+                    break;
+                case TYPE_MESSAGE:
+                    OP_Message message = new OP_Message();
+                    message.setMessage(readString());
+                    op = message;
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt binary trace: " + file + " at " + (pos - 1));
+            }
+
+            if ((tag & HAS_SOURCE) != 0) {
+                op.source = readString();
+            }
+            if ((tag & HAS_ROWS) != 0) {
+                int[] rows = new int[readVarInt()];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = readZigZag();
+                }
+                op.sourceRows = rows;
+            }
+            if ((tag & HAS_GROUP) != 0) {
+                op.group = readZigZag();
+            }
+            return op;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io;
+
+import contract.wrapper.Operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A {@link LogStreamReader} for binary traces. The trace is memory mapped by
+ * {@link BinaryLog} and decoded batch by batch.
+ */
+public class BinaryLogReader extends LogStreamReader {
+
+    /**
+     * Create a new BinaryLogReader.
+     *
+     * @param file The binary trace to read.
+     */
+    public BinaryLogReader (File file) {
+        super(file);
+    }
+
+    @Override
+    public void read (ReadListener listener) throws IOException, InterruptedException {
+        BinaryLog log = BinaryLog.open(getFile());
+
+        listener.headerRead(log.getStructures(), new HashMap<String, List<String>>(log.getSources()));
+
+        int size = log.size();
+        int batchSize = getBatchSize();
+        for (int from = 0; from < size; from += batchSize) {
+            if (isCancelled()) {
+                return;
+            }
+            deliver(log.getOperations(from, Math.min(size, from + batchSize)), listener);
+        }
+        listener.readFinished(size);
+    }
+}
@@ -0,0 +1,423 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.operation.OP_Message;
+import contract.operation.OP_ReadWrite;
+import contract.operation.OP_Swap;
+import contract.operation.OP_ToggleScope;
+import contract.operation.OperationType;
+import contract.wrapper.Locator;
+import contract.wrapper.Operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a binary trace which can be opened by {@link BinaryLog}. Operations are written
+ * one at a time as they arrive; the string table, structures and sources are written
+ * when the writer is closed.
+ */
+public class BinaryLogWriter implements LogWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Integral values with a larger magnitude are written as doubles.
+     */
+    private static final double MAX_INTEGRAL = 1L << 52;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final FileChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final int blockSize;
+
+    /**
+     * Position in the file of the next byte written to {@link #out}.
+     */
+    private long position = BinaryLog.HEADER_SIZE;
+    private int count;
+    private long[] blockOffsets = new long[64];
+
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+    private final List<String> strings = new ArrayList<String>();
+
+    private Map<String, DataStructure> structs = new HashMap<String, DataStructure>();
+    private Map<String, List<String>> sources = new HashMap<String, List<String>>();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new BinaryLogWriter.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file could not be opened.
+     */
+    public BinaryLogWriter (File file) throws IOException {
+        this(file, BinaryLog.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a new BinaryLogWriter.
+     *
+     * @param file The file to write.
+     * @param blockSize The number of operations between entries in the block index.
+     * @throws IOException If the file could not be opened.
+     */
+    public BinaryLogWriter (File file, int blockSize) throws IOException {
+        this.blockSize = blockSize < 1 ? 1 : blockSize;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(BinaryLog.HEADER_SIZE);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Set the header of the trace. Unlike JSON logs, the header is written last, so this
+     * method may be called at any time before the writer is closed.
+     *
+     * @param structs The annotated variables of the trace.
+     * @param sources The sources of the trace, may be {@code null}.
+     */
+    @Override
+    public void writeHeader (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+        this.structs = structs;
+        this.sources = sources != null ? sources : new HashMap<String, List<String>>();
+    }
+
+    /**
+     * Write operations.
+     *
+     * @param ops The operations to write.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void writeOperations (List<Operation> ops) throws IOException {
+        for (Operation op : ops) {
+            writeOperation(op);
+        }
+    }
+
+    /**
+     * Write an operation.
+     *
+     * @param op The operation to write.
+     * @throws IOException If writing fails.
+     */
+    public void writeOperation (Operation op) throws IOException {
+        if (count % blockSize == 0) {
+            int block = count / blockSize;
+            if (block == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockOffsets[block] = position + out.position();
+        }
+        count++;
+
+        int tag;
+        double[] values = null;
+        switch (op.operation) {
+            case read:
+            case write:
+                values = ((OP_ReadWrite) op).getValue();
+                tag = op.operation == OperationType.read ? BinaryLog.TYPE_READ
+                        : BinaryLog.TYPE_WRITE;
+                break;
+            case swap:
+                values = ((OP_Swap) op).getValue();
+                tag = BinaryLog.TYPE_SWAP;
+                break;
+            case remove:
+                tag = BinaryLog.TYPE_REMOVE;
+                break;
+            case message:
+                tag = BinaryLog.TYPE_MESSAGE;
+                break;
+            default:
+                throw new IOException("Cannot write operation type: " + op.operation);
+        }
+        boolean integral = isIntegral(values);
+        tag |= op.source != null ? BinaryLog.HAS_SOURCE : 0;
+        tag |= op.sourceRows != null ? BinaryLog.HAS_ROWS : 0;
+        tag |= op.group != -1 ? BinaryLog.HAS_GROUP : 0;
+        tag |= integral ? BinaryLog.INTEGRAL_VALUES : 0;
+
+        ensure(1);
+        out.put((byte) tag);
+        switch (tag & BinaryLog.TYPE_MASK) {
+            case BinaryLog.TYPE_READ:
+            case BinaryLog.TYPE_WRITE:
+                writeLocator(((OP_ReadWrite) op).getSource());
+                writeLocator(((OP_ReadWrite) op).getTarget());
+                writeValues(values, integral);
+                break;
+            case BinaryLog.TYPE_SWAP:
+                writeLocator(((OP_Swap) op).getVar1());
+                writeLocator(((OP_Swap) op).getVar2());
+                writeValues(values, integral);
+                break;
+            case BinaryLog.TYPE_REMOVE:
+                writeLocator(((OP_ToggleScope) op).getTarget());
+                break;
+            default:
+                writeString(((OP_Message) op).getMessage());
+                break;
+        }
+
+        if (op.source != null) {
+            writeString(op.source);
+        }
+        if (op.sourceRows != null) {
+            writeVarInt(op.sourceRows.length);
+            for (int row : op.sourceRows) {
+                writeZigZag(row);
+            }
+        }
+        if (op.group != -1) {
+            writeZigZag(op.group);
+        }
+    }
+
+    /**
+     * Write the block index, string table, structures and sources, followed by the
+     * header. The trace is complete once this method returns.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close () throws IOException {
+        try {
+            // Block index
+            long indexOffset = position + out.position();
+            int blocks = (count + blockSize - 1) / blockSize;
+            writeVarInt(blocks);
+            for (int i = 0; i < blocks; i++) {
+                ensure(8);
+                out.putLong(blockOffsets[i]);
+            }
+
+            // Register all strings before writing the table.
+            for (DataStructure struct : structs.values()) {
+                id(struct.identifier);
+                id(struct.rawType.toString());
+                id(struct.abstractType == null ? null : struct.abstractType.toString());
+                id(struct.visual == null ? null : struct.visual.toString());
+                id(struct.attributes == null ? null : LogJson.GSON.toJson(struct.attributes));
+            }
+            for (String name : sources.keySet()) {
+                id(name);
+            }
+
+            // String table
+            long stringsOffset = position + out.position();
+            writeVarInt(strings.size());
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                writeBytes(bytes);
+            }
+
+            // Structures
+            long structuresOffset = position + out.position();
+            writeVarInt(structs.size());
+            for (DataStructure struct : structs.values()) {
+                writeString(struct.identifier);
+                writeString(struct.rawType.toString());
+                writeString(struct.abstractType == null ? null : struct.abstractType.toString());
+                writeString(struct.visual == null ? null : struct.visual.toString());
+                writeString(struct.attributes == null ? null : LogJson.GSON.toJson(struct.attributes));
+            }
+
+            // Sources
+            long sourcesOffset = position + out.position();
+            writeVarInt(sources.size());
+            for (Map.Entry<String, List<String>> source : sources.entrySet()) {
+                SourceStore store = SourceStore.of(source.getValue());
+                ByteBuffer bytes = store.getBytes();
+                writeString(source.getKey());
+                writeVarInt(store.size());
+                writeVarInt(bytes.remaining());
+                writeBytes(bytes);
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryLog.HEADER_SIZE);
+            header.putInt(BinaryLog.MAGIC);
+            header.putInt(BinaryLog.VERSION);
+            header.putInt(count);
+            header.putInt(blockSize);
+            header.putLong(indexOffset);
+            header.putLong(stringsOffset);
+            header.putLong(structuresOffset);
+            header.putLong(sourcesOffset);
+            header.putLong(position);
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the number of operations written.
+     *
+     * @return The number of operations written.
+     */
+    public int getCount () {
+        return count;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private static boolean isIntegral (double[] values) {
+        if (values == null) {
+            return false;
+        }
+        for (double v : values) {
+            if (v != Math.rint(v) || Math.abs(v) > MAX_INTEGRAL || (v == 0 && 1 / v < 0)) {
+                return false; // Fractions, huge values, NaN, infinities and -0.0
+            }
+        }
+        return true;
+    }
+
+    private int id (String s) {
+        if (s == null) {
+            return 0;
+        }
+        Integer id = stringIds.get(s);
+        if (id == null) {
+            strings.add(s);
+            id = strings.size();
+            stringIds.put(s, id);
+        }
+        return id;
+    }
+
+    private void writeString (String s) throws IOException {
+        writeVarInt(id(s));
+    }
+
+    private void writeLocator (Locator locator) throws IOException {
+        if (locator == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(id(locator.identifier));
+        if (locator.index == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(locator.index.length + 1);
+        for (int i : locator.index) {
+            writeZigZag(i);
+        }
+    }
+
+    private void writeValues (double[] values, boolean integral) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.length + 1);
+        for (double v : values) {
+            if (integral) {
+                long l = (long) v;
+                writeVarLong((l << 1) ^ (l >> 63));
+            } else {
+                ensure(8);
+                out.putDouble(v);
+            }
+        }
+    }
+
+    private void writeZigZag (int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarInt (int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private void writeVarLong (long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private void writeBytes (byte[] bytes) throws IOException {
+        writeBytes(ByteBuffer.wrap(bytes));
+    }
+
+    private void writeBytes (ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            ensure(1);
+            if (bytes.remaining() <= out.remaining()) {
+                out.put(bytes);
+            } else {
+                ByteBuffer part = bytes.duplicate();
+                part.limit(part.position() + out.remaining());
+                out.put(part);
+                bytes.position(part.position());
+            }
+        }
+    }
+
+    private void ensure (int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush () throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            position += channel.write(out);
+        }
+        out.clear();
+    }
+}
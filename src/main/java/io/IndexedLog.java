@@ -0,0 +1,173 @@
+package io;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Random access to the operations of a JSON log through its {@link LogIndex}. Reading a
+ * window of operations only parses the header (if requested) and the operations from the
+ * closest index entry before the window.
+ */
+public class IndexedLog implements RandomAccessLog {
+
+    private static final byte[] ARRAY_OPEN = {'['};
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final LogIndex index;
+    private final OperationAdapter operationAdapter = new OperationAdapter();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new IndexedLog.
+     *
+     * @param index The index of the log.
+     */
+    public IndexedLog (LogIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Open a JSON log, creating its index if needed.
+     *
+     * @param log A JSON log.
+     * @return A new IndexedLog.
+     * @throws IOException If the log could not be read, or is compressed.
+     */
+    public static IndexedLog open (File log) throws IOException {
+        if (LogStreamReader.isCompressed(log)) {
+            throw new IOException("Compressed logs cannot be indexed: " + log);
+        }
+        return new IndexedLog(LogIndex.forLog(log));
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public int size () {
+        return index.size();
+    }
+
+    @Override
+    public Map<String, DataStructure> getStructures () throws IOException {
+        Map<String, DataStructure> structs = new HashMap<String, DataStructure>();
+        readHeader(structs, new HashMap<String, List<String>>());
+        return structs;
+    }
+
+    @Override
+    public Map<String, List<String>> getSources () throws IOException {
+        Map<String, List<String>> sources = new HashMap<String, List<String>>();
+        readHeader(new HashMap<String, DataStructure>(), sources);
+        return sources;
+    }
+
+    @Override
+    public List<Operation> getOperations (int from, int to) throws IOException {
+        if (from < 0 || to > index.size() || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + index.size());
+        }
+
+        List<Operation> ops = new ArrayList<Operation>(to - from);
+        if (from == to) {
+            return ops;
+        }
+
+        int first = from - from % index.getStride();
+        try (JsonReader reader = open(index.getOffset(from), true)) {
+            reader.beginArray();
+            for (int i = first; i < from; i++) {
+                reader.skipValue();
+            }
+            for (int i = from; i < to; i++) {
+                ops.add(operationAdapter.read(reader));
+            }
+        }
+        return ops;
+    }
+
+    /**
+     * Returns the index of this log.
+     *
+     * @return The index of this log.
+     */
+    public LogIndex getIndex () {
+        return index;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private void readHeader (Map<String, DataStructure> structs, Map<String, List<String>> sources)
+            throws IOException {
+        if (index.getHeaderStart() < 0) {
+            return;
+        }
+        try (JsonReader reader = open(index.getHeaderStart(), false)) {
+            LogJson.readHeader(reader, new JsonParser(), structs, sources);
+        }
+    }
+
+    /**
+     * Open a reader at a position in the log.
+     *
+     * @param position The position to start reading from.
+     * @param inArray If {@code true}, the reader sees an array starting at
+     * {@code position}.
+     * @return A JsonReader.
+     * @throws IOException If the log could not be opened.
+     */
+    private JsonReader open (long position, boolean inArray) throws IOException {
+        FileChannel channel = FileChannel.open(index.getLog().toPath(), StandardOpenOption.READ);
+        channel.position(position);
+        InputStream in = Channels.newInputStream(channel);
+        if (inArray) {
+            in = new SequenceInputStream(new ByteArrayInputStream(ARRAY_OPEN), in);
+        }
+        return new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                BUFFER_SIZE));
+    }
+}
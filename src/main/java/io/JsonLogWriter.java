@@ -0,0 +1,202 @@
+package io;
+
+import com.google.gson.stream.JsonWriter;
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a log in the JSON format one operation at a time. The header is written by
+ * {@link #writeHeader(Map, Map)}, after which any number of operations may be written
+ * before the log is closed.
+ */
+public class JsonLogWriter implements LogWriter {
+
+    /**
+     * Version written to the header. The JSON schema is unchanged, so this is the version
+     * of existing logs and is independent of the binary format's version.
+     */
+    public static final int VERSION = 0;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final JsonWriter writer;
+    private final OperationAdapter operationAdapter = new OperationAdapter();
+    private boolean bodyStarted;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new JsonLogWriter.
+     *
+     * @param out The writer to write to. Closed when this JsonLogWriter is closed.
+     * @param pretty If {@code true}, the output is indented.
+     */
+    public JsonLogWriter (Writer out, boolean pretty) {
+        writer = new JsonWriter(out);
+        if (pretty) {
+            writer.setIndent("  ");
+        }
+    }
+
+    /**
+     * Create a new JsonLogWriter. The output is gzip-compressed if the name of the file
+     * ends with {@link LogStreamReader#GZIP_EXTENSION}.
+     *
+     * @param file The file to write.
+     * @param pretty If {@code true}, the output is indented.
+     * @throws IOException If the file could not be opened.
+     */
+    public JsonLogWriter (File file, boolean pretty) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(openStream(file), StandardCharsets.UTF_8), BUFFER_SIZE),
+                pretty);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Write the header of the log. Must be called exactly once, before any operations are
+     * written.
+     *
+     * @param structs The annotated variables of the log.
+     * @param sources The sources of the log, may be {@code null}.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void writeHeader (Map<String, DataStructure> structs, Map<String, List<String>> sources)
+            throws IOException {
+        writer.beginObject();
+        writer.name(LogJson.HEADER).beginObject();
+        writer.name(LogJson.VERSION).value(VERSION);
+
+        writer.name(LogJson.ANNOTATED_VARIABLES).beginObject();
+        for (DataStructure struct : structs.values()) {
+            writer.name(struct.identifier);
+            writeStructure(struct);
+        }
+        writer.endObject();
+
+        if (sources != null) {
+            writer.name(LogJson.SOURCES).beginObject();
+            for (Map.Entry<String, List<String>> source : sources.entrySet()) {
+                writer.name(source.getKey()).beginArray();
+                for (String line : source.getValue()) {
+                    writer.value(line);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        }
+
+        writer.endObject();
+        writer.name(LogJson.BODY).beginArray();
+        bodyStarted = true;
+    }
+
+    /**
+     * Write an operation to the body.
+     *
+     * @param op The operation to write.
+     * @throws IOException If writing fails.
+     */
+    public void writeOperation (Operation op) throws IOException {
+        operationAdapter.write(writer, op);
+    }
+
+    /**
+     * Write operations to the body.
+     *
+     * @param ops The operations to write.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void writeOperations (List<Operation> ops) throws IOException {
+        for (Operation op : ops) {
+            operationAdapter.write(writer, op);
+        }
+    }
+
+    /**
+     * Finish the log and close the underlying writer.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close () throws IOException {
+        try {
+            if (bodyStarted) {
+                writer.endArray();
+                writer.endObject();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private static OutputStream openStream (File file) throws IOException {
+        OutputStream out = Channels.newOutputStream(FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        if (LogStreamReader.isCompressed(file)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return out;
+    }
+
+    private void writeStructure (DataStructure struct) throws IOException {
+        writer.beginObject();
+        writer.name(LogJson.IDENTIFIER).value(struct.identifier);
+        writer.name(LogJson.RAW_TYPE).value(struct.rawType.toString());
+        if (struct.abstractType != null) {
+            writer.name(LogJson.ABSTRACT_TYPE).value(struct.abstractType.toString());
+        }
+        if (struct.visual != null) {
+            writer.name(LogJson.VISUAL).value(struct.visual.toString());
+        }
+        if (struct.attributes != null) {
+            writer.name(LogJson.ATTRIBUTES);
+            LogJson.GSON.toJson(struct.attributes, LogJson.ATTRIBUTES_TYPE, writer);
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,286 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects streamed data between the communicator and the model. Any number of
+ * communicator threads may {@link #receive(Map, Map, List) receive} messages, while a
+ * single consumer periodically {@link #drain() drains} everything that has accumulated
+ * into one batch. Operations are held in a {@link RingBuffer}. Structures and sources are
+ * merged by name and are never dropped.<br>
+ * <br>
+ * Messages which carry a producer and sequence number are first put through an
+ * {@link OrderedMerge}, so that the operations of several producers are delivered in a
+ * single global order. Producers move the released operations on to the same buffer, so
+ * the overflow policy applies to them as well.
+ */
+public class LiveStream {
+
+    /**
+     * Default number of operations buffered in memory before the overflow policy applies.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final RingBuffer<Operation> operations;
+    private final OrderedMerge merge = new OrderedMerge();
+
+    /**
+     * Held while operations are released from the merge. Producers keep it until the
+     * released operations are in the buffer, so that they stay in order.
+     */
+    private final ReentrantLock release = new ReentrantLock();
+    private final Map<String, DataStructure> structs = new ConcurrentHashMap<String, DataStructure>();
+    private final Map<String, List<String>> sources = new ConcurrentHashMap<String, List<String>>();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LiveStream.
+     *
+     * @param capacity The number of operations buffered in memory.
+     * @param overflow The initial overflow policy.
+     */
+    public LiveStream (int capacity, RingBuffer.Overflow overflow) {
+        operations = new RingBuffer<Operation>(capacity, overflow, new OperationSpill());
+    }
+
+    /**
+     * Create a new LiveStream which spills to disk when {@link #DEFAULT_CAPACITY} is
+     * exceeded.
+     */
+    public LiveStream () {
+        this(DEFAULT_CAPACITY, RingBuffer.Overflow.SPILL);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Add the contents of a message. May be called from any thread. Any argument may be
+     * {@code null}.
+     *
+     * @param newStructs The structures of the message.
+     * @param newSources The sources of the message.
+     * @param newOps The operations of the message.
+     * @throws IOException If operations could not be spilled.
+     * @throws InterruptedException If interrupted while blocked by a full buffer.
+     */
+    public void receive (Map<String, DataStructure> newStructs, Map<String, List<String>> newSources,
+                         List<Operation> newOps) throws IOException, InterruptedException {
+        // Structures are published before the operations which use them.
+        if (newStructs != null) {
+            structs.putAll(newStructs);
+        }
+        if (newSources != null) {
+            sources.putAll(newSources);
+        }
+        if (newOps != null) {
+            for (Operation op : newOps) {
+                operations.put(op);
+            }
+        }
+    }
+
+    /**
+     * Add the contents of a message from one of several producers. The operations are
+     * delivered in (timestamp, producer, sequence) order. Operations released by the merge
+     * are added to the buffer on the calling thread, applying the overflow policy. May be
+     * called from any thread. Any of the maps may be {@code null}.
+     *
+     * @param producer The producer of the message.
+     * @param sequence The position of the message among the messages of its producer.
+     * @param timestamp The time the message was produced, as given by
+     * {@link System#nanoTime()}.
+     * @param newStructs The structures of the message.
+     * @param newSources The sources of the message.
+     * @param newOps The operations of the message.
+     * @throws IOException If operations could not be spilled.
+     * @throws InterruptedException If interrupted while blocked by a full buffer.
+     */
+    public void receive (String producer, long sequence, long timestamp, Map<String, DataStructure> newStructs,
+                         Map<String, List<String>> newSources, List<Operation> newOps)
+            throws IOException, InterruptedException {
+        if (newStructs != null) {
+            structs.putAll(newStructs);
+        }
+        if (newSources != null) {
+            sources.putAll(newSources);
+        }
+        merge.submit(producer, sequence, timestamp, newOps == null ? new ArrayList<Operation>() : newOps);
+
+        List<Operation> released = new ArrayList<Operation>();
+        release.lockInterruptibly();
+        try {
+            merge.drainTo(released, System.nanoTime());
+            for (Operation op : released) {
+                operations.put(op);
+            }
+        } finally {
+            release.unlock();
+        }
+    }
+
+    /**
+     * Forget a producer once its remaining messages have been delivered. The producer must
+     * not send any more messages. May be called from any thread.
+     *
+     * @param producer The producer which has finished.
+     */
+    public void finish (String producer) {
+        release.lock();
+        try {
+            merge.finish(producer);
+        } finally {
+            release.unlock();
+        }
+    }
+
+    /**
+     * Remove everything received since the last call. Should only be called by the
+     * consumer.
+     *
+     * @return The accumulated data, or {@code null} if nothing has been received.
+     * @throws IOException If spilled operations could not be read.
+     */
+    public Batch drain () throws IOException {
+        if (operations.getQueued() == 0 && merge.getQueued() == 0 && structs.isEmpty() && sources.isEmpty()) {
+            return null;
+        }
+
+        // Operations first: their structures were published before them.
+        Batch batch = new Batch();
+
+        // Messages held by the reorder window are released after the buffer has been
+        // drained, holding the lock throughout so that no producer releases an earlier
+        // message in between. Skipped while a producer is releasing, as its operations are
+        // not all in the buffer yet. Never waits, since a producer may be blocked until the
+        // buffer has been drained.
+        if (merge.getQueued() > 0 && release.tryLock()) {
+            try {
+                operations.drainTo(batch.operations);
+                merge.drainTo(batch.operations, System.nanoTime());
+            } finally {
+                release.unlock();
+            }
+        } else {
+            operations.drainTo(batch.operations);
+        }
+        if (batch.operations.isEmpty() && structs.isEmpty() && sources.isEmpty()) {
+            return null; // Everything is waiting in the reorder window.
+        }
+        take(structs, batch.structs);
+        take(sources, batch.sources);
+        return batch;
+    }
+
+    /**
+     * Move all entries of a concurrent map to {@code target}.
+     */
+    private static <T> void take (Map<String, T> map, Map<String, T> target) {
+        for (String key : map.keySet()) {
+            T value = map.remove(key);
+            if (value != null) {
+                target.put(key, value);
+            }
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters and Setters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the buffer holding the operations, for its policy and counters.
+     *
+     * @return The operation buffer.
+     */
+    public RingBuffer<Operation> getBuffer () {
+        return operations;
+    }
+
+    /**
+     * Returns the merge stage for sequenced messages, for its counters.
+     *
+     * @return The merge stage.
+     */
+    public OrderedMerge getMerge () {
+        return merge;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Everything received between two calls to {@link #drain()}.
+     */
+    public static class Batch {
+
+        private final Map<String, DataStructure> structs = new HashMap<String, DataStructure>();
+        private final Map<String, List<String>> sources = new HashMap<String, List<String>>();
+        private final List<Operation> operations = new ArrayList<Operation>();
+
+        /**
+         * Returns the structures received.
+         *
+         * @return The structures received.
+         */
+        public Map<String, DataStructure> getStructures () {
+            return structs;
+        }
+
+        /**
+         * Returns the sources received.
+         *
+         * @return The sources received.
+         */
+        public Map<String, List<String>> getSources () {
+            return sources;
+        }
+
+        /**
+         * Returns the operations received, in order.
+         *
+         * @return The operations received.
+         */
+        public List<Operation> getOperations () {
+            return operations;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import contract.wrapper.Locator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes {@link Locator Locators} directly from the token stream. Identifiers
+ * are interned, so that the thousands of locators referring to the same variable share a
+ * single String. Instances are thread safe.
+ */
+public class LocatorAdapter extends TypeAdapter<Locator> {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Identifiers seen by this adapter.
+     */
+    private final ConcurrentHashMap<String, String> identifiers = new ConcurrentHashMap<String, String>();
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public Locator read (JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String identifier = null;
+        int[] index = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (LogJson.IDENTIFIER.equals(name)) {
+                identifier = intern(in.nextString());
+            } else if (LogJson.INDEX.equals(name)) {
+                index = readInts(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Locator(identifier, index);
+    }
+
+    @Override
+    public void write (JsonWriter out, Locator locator) throws IOException {
+        if (locator == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(LogJson.IDENTIFIER).value(locator.identifier);
+        if (locator.index != null) {
+            out.name(LogJson.INDEX).beginArray();
+            for (int i : locator.index) {
+                out.value(i);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    /**
+     * Returns the canonical instance of an identifier.
+     *
+     * @param identifier An identifier.
+     * @return An equal String, shared by all locators read by this adapter.
+     */
+    public String intern (String identifier) {
+        String previous = identifiers.putIfAbsent(identifier, identifier);
+        return previous == null ? identifier : previous;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Read an array of integers into an {@code int[]}.
+     *
+     * @param in A reader positioned at the start of an array.
+     * @return The integers of the array.
+     * @throws IOException If reading fails.
+     */
+    static int[] readInts (JsonReader in) throws IOException {
+        int[] ints = new int[4];
+        int size = 0;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == ints.length) {
+                ints = Arrays.copyOf(ints, size * 2);
+            }
+            ints[size++] = in.nextInt();
+        }
+        in.endArray();
+
+        return size == ints.length ? ints : Arrays.copyOf(ints, size);
+    }
+
+    /**
+     * Read a number or an array of numbers into a {@code double[]}.
+     *
+     * @param in A reader positioned at a number or the start of an array.
+     * @return The numbers read.
+     * @throws IOException If reading fails.
+     */
+    static double[] readDoubles (JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            return new double[]{in.nextDouble()};
+        }
+
+        double[] doubles = new double[2];
+        int size = 0;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == doubles.length) {
+                doubles = Arrays.copyOf(doubles, size * 2);
+            }
+            doubles[size++] = in.nextDouble();
+        }
+        in.endArray();
+
+        return size == doubles.length ? doubles : Arrays.copyOf(doubles, size);
+    }
+}
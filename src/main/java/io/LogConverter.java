@@ -0,0 +1,127 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion between JSON logs and binary traces. Both directions stream, so logs larger
+ * than the heap can be converted.
+ */
+public abstract class LogConverter {
+
+    private LogConverter () {
+    } // Not to be instantiated.
+
+    /**
+     * Convert a log from the command line. The direction is decided by the extension of
+     * the input file.<br>
+     * <br>
+     * Usage: {@code LogConverter <input> <output>}
+     *
+     * @param args The input and output files.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void main (String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LogConverter <input> <output>");
+            return;
+        }
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        int count = BinaryLog.isBinaryLog(in) ? toJson(in, out, false) : toBinary(in, out);
+        System.out.println("Converted " + count + " operations: " + in + " -> " + out);
+    }
+
+    /**
+     * Convert a JSON log to a binary trace.
+     *
+     * @param json The JSON log to read.
+     * @param binary The binary trace to write.
+     * @return The number of operations converted.
+     * @throws IOException If reading or writing fails.
+     */
+    public static int toBinary (File json, File binary) throws IOException {
+        try (BinaryLogWriter writer = new BinaryLogWriter(binary)) {
+            read(new LogStreamReader(json), new LogStreamReader.ReadListener() {
+
+                @Override
+                public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+                    writer.writeHeader(structs, sources);
+                }
+
+                @Override
+                public void operationsRead (List<Operation> operations) {
+                    try {
+                        writer.writeOperations(operations);
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                }
+
+                @Override
+                public void readFinished (int totalOperations) {
+                }
+
+                @Override
+                public void readFailed (Exception exception) {
+                }
+            });
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Convert a binary trace to a JSON log.
+     *
+     * @param binary The binary trace to read.
+     * @param json The JSON log to write.
+     * @param pretty If {@code true}, the JSON is indented.
+     * @return The number of operations converted.
+     * @throws IOException If reading or writing fails.
+     */
+    public static int toJson (File binary, File json, boolean pretty) throws IOException {
+        BinaryLog log = BinaryLog.open(binary);
+        try (JsonLogWriter writer = new JsonLogWriter(json, pretty)) {
+            writer.writeHeader(log.getStructures(), log.getSources());
+            for (int from = 0; from < log.size(); from += LogStreamReader.DEFAULT_BATCH_SIZE) {
+                writer.writeOperations(log.getOperations(from,
+                        Math.min(log.size(), from + LogStreamReader.DEFAULT_BATCH_SIZE)));
+            }
+        }
+        return log.size();
+    }
+
+    /**
+     * Write a binary trace.
+     *
+     * @param file The file to write.
+     * @param structs The annotated variables of the trace.
+     * @param sources The sources of the trace, may be {@code null}.
+     * @param ops The operations of the trace.
+     * @throws IOException If writing fails.
+     */
+    public static void writeBinary (File file, Map<String, DataStructure> structs, Map<String, List<String>> sources,
+                                    List<Operation> ops) throws IOException {
+        try (BinaryLogWriter writer = new BinaryLogWriter(file)) {
+            writer.writeHeader(structs, sources);
+            writer.writeOperations(ops);
+        }
+    }
+
+    private static void read (LogStreamReader reader, LogStreamReader.ReadListener listener) throws IOException {
+        try {
+            reader.read(listener);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", exception);
+        }
+    }
+}
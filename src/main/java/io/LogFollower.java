@@ -0,0 +1,425 @@
+package io;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import javafx.application.Platform;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a JSON log which is still being written, like {@code tail -f}. The file is
+ * read from a persistent position whenever it grows, and only the newly appended bytes are
+ * scanned. Every operation which has been completely written is parsed and delivered to
+ * the listener, so the body array does not have to be closed for the operations to be
+ * shown.<br>
+ * <br>
+ * Changes are detected using a {@link WatchService} on the parent directory. Since some
+ * platforms implement the service by polling, the length of the file is also checked
+ * every {@link #POLL_INTERVAL} milliseconds.
+ */
+public class LogFollower {
+
+    /**
+     * Maximum time in milliseconds between checks of the length of the file.
+     */
+    public static final long POLL_INTERVAL = 50;
+
+    private static final int READ_SIZE = 1 << 16;
+
+    /**
+     * Maximum number of batches delivered to the FX thread but not yet consumed.
+     */
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The file to follow.
+     */
+    private final File file;
+
+    /**
+     * Finds the header and operations in the appended bytes.
+     */
+    private final LogScanner scanner;
+
+    /**
+     * Decoder for the operations of the body.
+     */
+    private final OperationAdapter operationAdapter = new OperationAdapter();
+
+    /**
+     * Position in the file of the next byte to read.
+     */
+    private long position;
+
+    /**
+     * Bytes which have been read, but which do not belong to a completed element yet.
+     */
+    private byte[] buffer = new byte[READ_SIZE];
+
+    /**
+     * Position in the file of {@code buffer[0]}.
+     */
+    private long bufferStart;
+
+    /**
+     * Number of bytes in {@code buffer}.
+     */
+    private int bufferLength;
+
+    /**
+     * Ranges of the elements completed during the latest scan.
+     */
+    private long[] header;
+    private final List<long[]> found = new ArrayList<long[]>();
+
+    /**
+     * Set when the body array has been closed.
+     */
+    private boolean complete;
+
+    private boolean headerDelivered;
+    private int total;
+
+    private volatile boolean stopped;
+    private Thread thread;
+
+    /**
+     * Limits the number of batches waiting for the FX thread.
+     */
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LogFollower.
+     *
+     * @param file The file to follow.
+     */
+    public LogFollower (File file) {
+        this.file = file;
+        scanner = new LogScanner(new LogScanner.ScanListener() {
+
+            @Override
+            public void headerFound (long start, long end) {
+                header = new long[]{start, end};
+            }
+
+            @Override
+            public void bodyStart (long position) {
+            }
+
+            @Override
+            public void operationFound (long start, long end) {
+                found.add(new long[]{start, end});
+            }
+
+            @Override
+            public void bodyEnd (long position) {
+                complete = true;
+            }
+        });
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Start following the log on a background thread. The listener is called on the JavaFX
+     * Application thread. {@link LogStreamReader.ReadListener#readFinished(int)} is called if
+     * the body of the log is closed by the writer, after which the log is no longer
+     * followed.
+     *
+     * @param listener The listener to notify.
+     */
+    public synchronized void start (LogStreamReader.ReadListener listener) {
+        if (thread != null) {
+            throw new IllegalStateException("Already started.");
+        }
+        FXListener fxListener = new FXListener(listener);
+        thread = new Thread(() -> {
+            try {
+                follow(fxListener);
+            } catch (IOException | RuntimeException exception) {
+                fxListener.readFailed(exception);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }, "LogFollower: " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop following the log. No more calls will be made to the listener.
+     */
+    public synchronized void stop () {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Returns {@code true} if this follower has been stopped.
+     *
+     * @return {@code true} if this follower has been stopped.
+     */
+    public boolean isStopped () {
+        return stopped;
+    }
+
+    /**
+     * Returns the file followed by this follower.
+     *
+     * @return The file followed by this follower.
+     */
+    public File getFile () {
+        return file;
+    }
+
+    /**
+     * Follow the log on the current thread, until the body is closed or this follower is
+     * stopped.
+     *
+     * @param listener The listener to notify.
+     * @throws IOException If the file could not be read, or was truncated.
+     * @throws InterruptedException If interrupted while waiting for changes.
+     */
+    public void follow (LogStreamReader.ReadListener listener) throws IOException, InterruptedException {
+        Path path = file.getAbsoluteFile().toPath();
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (!stopped) {
+                readAppended(listener);
+                if (complete) {
+                    if (!headerDelivered) {
+                        deliverHeader(new HashMap<String, DataStructure>(), new HashMap<String, List<String>>(), listener);
+                    }
+                    listener.readFinished(total);
+                    return;
+                }
+
+                // Events are only used to wake up early - the length is checked regardless.
+                WatchKey key = watcher.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Read and scan everything appended since the last call, and deliver the completed
+     * elements.
+     */
+    private void readAppended (LogStreamReader.ReadListener listener) throws IOException, InterruptedException {
+        if (!file.exists()) {
+            return; // Not created yet, or being replaced.
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < position) {
+                throw new IOException("Log was truncated: " + file);
+            }
+            while (position < size && !stopped) {
+                int count = (int) Math.min(READ_SIZE, size - position);
+                ensureCapacity(bufferLength + count);
+                int read = channel.read(ByteBuffer.wrap(buffer, bufferLength, count), position);
+                if (read < 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    scanner.scan(buffer[bufferLength + i], position + i);
+                }
+                bufferLength += read;
+                position += read;
+
+                deliverFound(listener);
+            }
+        }
+    }
+
+    /**
+     * Parse and deliver the elements found by the scanner, then discard their bytes.
+     */
+    private void deliverFound (LogStreamReader.ReadListener listener) throws IOException, InterruptedException {
+        long consumed = bufferStart;
+
+        if (header != null) {
+            Map<String, DataStructure> structs = new HashMap<String, DataStructure>();
+            Map<String, List<String>> sources = new HashMap<String, List<String>>();
+            try (JsonReader reader = openReader(header[0], header[1])) {
+                LogJson.readHeader(reader, new JsonParser(), structs, sources);
+            }
+            deliverHeader(structs, sources, listener);
+            consumed = header[1];
+            header = null;
+        }
+
+        if (!found.isEmpty()) {
+            if (!headerDelivered) {
+                // Body before header - notify anyway so that the listener can create its visuals.
+                deliverHeader(new HashMap<String, DataStructure>(), new HashMap<String, List<String>>(), listener);
+            }
+            List<Operation> batch = new ArrayList<Operation>(found.size());
+            for (long[] range : found) {
+                try (JsonReader reader = openReader(range[0], range[1])) {
+                    batch.add(operationAdapter.read(reader));
+                }
+                consumed = Math.max(consumed, range[1]);
+            }
+            found.clear();
+            total += batch.size();
+            if (listener instanceof FXListener) {
+                pendingBatches.acquire();
+            }
+            listener.operationsRead(batch);
+        }
+
+        discard(consumed);
+    }
+
+    private void deliverHeader (Map<String, DataStructure> structs, Map<String, List<String>> sources,
+                                LogStreamReader.ReadListener listener) {
+        headerDelivered = true;
+        listener.headerRead(structs, sources);
+    }
+
+    /**
+     * Returns a reader for the bytes between {@code start} and {@code end} in the log.
+     */
+    private JsonReader openReader (long start, long end) {
+        int offset = (int) (start - bufferStart);
+        ByteArrayInputStream in = new ByteArrayInputStream(buffer, offset, (int) (end - start));
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Discard the buffered bytes before {@code newStart}.
+     */
+    private void discard (long newStart) {
+        int shift = (int) (newStart - bufferStart);
+        if (shift <= 0) {
+            return;
+        }
+        System.arraycopy(buffer, shift, buffer, 0, bufferLength - shift);
+        bufferLength -= shift;
+        bufferStart = newStart;
+    }
+
+    private void ensureCapacity (int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Forwards calls to the JavaFX Application thread, dropping them once this follower
+     * has been stopped.
+     */
+    private class FXListener implements LogStreamReader.ReadListener {
+
+        private final LogStreamReader.ReadListener listener;
+
+        private FXListener (LogStreamReader.ReadListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+            Platform.runLater(() -> {
+                if (!stopped) {
+                    listener.headerRead(structs, sources);
+                }
+            });
+        }
+
+        @Override
+        public void operationsRead (List<Operation> operations) {
+            Platform.runLater(() -> {
+                pendingBatches.release();
+                if (!stopped) {
+                    listener.operationsRead(operations);
+                }
+            });
+        }
+
+        @Override
+        public void readFinished (int totalOperations) {
+            Platform.runLater(() -> {
+                if (!stopped) {
+                    listener.readFinished(totalOperations);
+                }
+            });
+        }
+
+        @Override
+        public void readFailed (Exception exception) {
+            Platform.runLater(() -> {
+                if (!stopped) {
+                    listener.readFailed(exception);
+                }
+            });
+        }
+    }
+}
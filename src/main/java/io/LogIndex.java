@@ -0,0 +1,298 @@
+package io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A seek index for a JSON log, stored in a sidecar file next to the log. Records the
+ * position of the header and the byte offset of every {@code stride}:th operation of the
+ * body. The index is only valid as long as the length and modification time of the log
+ * are unchanged.
+ */
+public class LogIndex {
+
+    /**
+     * Extension of index files, appended to the name of the log.
+     */
+    public static final String EXTENSION = ".idx";
+
+    /**
+     * Default number of operations between index entries.
+     */
+    public static final int DEFAULT_STRIDE = 1000;
+
+    /**
+     * "GIDX" in ASCII.
+     */
+    private static final int MAGIC = 0x47494458;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final File log;
+    private final long logLength;
+    private final long logModified;
+    private final int stride;
+    private final long headerStart;
+    private final long headerEnd;
+    private final int size;
+    private final long[] offsets;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    private LogIndex (File log, long logLength, long logModified, int stride, long headerStart, long headerEnd,
+                      int size, long[] offsets) {
+        this.log = log;
+        this.logLength = logLength;
+        this.logModified = logModified;
+        this.stride = stride;
+        this.headerStart = headerStart;
+        this.headerEnd = headerEnd;
+        this.size = size;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the index of a log, loading it from the sidecar file if it is up to date and
+     * creating (and saving) it otherwise.
+     *
+     * @param log A JSON log.
+     * @return The index of the log.
+     * @throws IOException If the log could not be read.
+     */
+    public static LogIndex forLog (File log) throws IOException {
+        LogIndex index = load(log);
+        if (index == null) {
+            index = create(log, DEFAULT_STRIDE);
+            try {
+                index.save();
+            } catch (IOException exception) {
+                // Read-only location - keep the index in memory only.
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Load the index of a log from its sidecar file.
+     *
+     * @param log A JSON log.
+     * @return The index, or {@code null} if there is no up-to-date index.
+     */
+    public static LogIndex load (File log) {
+        File file = getIndexFile(log);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long logLength = in.readLong();
+            long logModified = in.readLong();
+            if (logLength != log.length() || logModified != log.lastModified()) {
+                return null; // Stale.
+            }
+            int stride = in.readInt();
+            long headerStart = in.readLong();
+            long headerEnd = in.readLong();
+            int size = in.readInt();
+            long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new LogIndex(log, logLength, logModified, stride, headerStart, headerEnd, size, offsets);
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Create the index of a log by scanning it.
+     *
+     * @param log A JSON log.
+     * @param stride The number of operations between index entries.
+     * @return The index of the log.
+     * @throws IOException If the log could not be read.
+     */
+    public static LogIndex create (File log, int stride) throws IOException {
+        final int s = stride < 1 ? 1 : stride;
+        long logLength = log.length();
+        long logModified = log.lastModified();
+        long[] header = {-1, -1};
+        long[][] offsets = {new long[64]};
+        int[] size = {0};
+
+        LogScanner scanner = new LogScanner(new LogScanner.ScanListener() {
+
+            @Override
+            public void headerFound (long start, long end) {
+                header[0] = start;
+                header[1] = end;
+            }
+
+            @Override
+            public void bodyStart (long position) {
+            }
+
+            @Override
+            public void operationFound (long start, long end) {
+                if (size[0] % s == 0) {
+                    int entry = size[0] / s;
+                    if (entry == offsets[0].length) {
+                        offsets[0] = Arrays.copyOf(offsets[0], entry * 2);
+                    }
+                    offsets[0][entry] = start;
+                }
+                size[0]++;
+            }
+
+            @Override
+            public void bodyEnd (long position) {
+            }
+        });
+
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long position = 0;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                scanner.scan(buffer, position);
+                position += buffer.remaining();
+                buffer.clear();
+            }
+        }
+
+        int entries = (size[0] + s - 1) / s;
+        return new LogIndex(log, logLength, logModified, s, header[0], header[1], size[0],
+                Arrays.copyOf(offsets[0], entries));
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Write this index to the sidecar file of the log.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void save () throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(getIndexFile(log))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logLength);
+            out.writeLong(logModified);
+            out.writeInt(stride);
+            out.writeLong(headerStart);
+            out.writeLong(headerEnd);
+            out.writeInt(size);
+            out.writeInt(offsets.length);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+        }
+    }
+
+    /**
+     * Returns the sidecar file of a log.
+     *
+     * @param log A JSON log.
+     * @return The index file of the log.
+     */
+    public static File getIndexFile (File log) {
+        return new File(log.getPath() + EXTENSION);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the indexed log.
+     *
+     * @return The indexed log.
+     */
+    public File getLog () {
+        return log;
+    }
+
+    /**
+     * Returns the number of operations in the log.
+     *
+     * @return The number of operations in the log.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Returns the number of operations between index entries.
+     *
+     * @return The number of operations between index entries.
+     */
+    public int getStride () {
+        return stride;
+    }
+
+    /**
+     * Returns the position of the header object, or -1 if the log has no header.
+     *
+     * @return The position of the header object.
+     */
+    public long getHeaderStart () {
+        return headerStart;
+    }
+
+    /**
+     * Returns the position after the header object, or -1 if the log has no header.
+     *
+     * @return The position after the header object.
+     */
+    public long getHeaderEnd () {
+        return headerEnd;
+    }
+
+    /**
+     * Returns the position of the closest indexed operation at or before an operation.
+     *
+     * @param operation The index of an operation.
+     * @return The byte offset of operation {@code operation - operation % stride}.
+     */
+    public long getOffset (int operation) {
+        return offsets[operation / stride];
+    }
+}
@@ -0,0 +1,329 @@
+package io;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import contract.datastructure.AbstractType;
+import contract.datastructure.Array;
+import contract.datastructure.DataStructure;
+import contract.datastructure.IndependentElement;
+import contract.datastructure.RawType;
+import contract.datastructure.VisualType;
+import contract.operation.OP_Message;
+import contract.operation.OP_ReadWrite;
+import contract.operation.OP_Swap;
+import contract.operation.OP_ToggleScope;
+import contract.operation.OperationType;
+import contract.wrapper.Locator;
+import contract.wrapper.Operation;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion between the JSON log format and the contract classes. Used by the readers
+ * in this package, which parse the log piece by piece instead of handing the entire
+ * file to {@code LogStreamManager}.
+ */
+public abstract class LogJson {
+
+    private LogJson () {
+    } // Not to be instantiated.
+
+    /*
+     * Member names of the log format.
+     */
+    public static final String HEADER = "header";
+    public static final String BODY = "body";
+    public static final String VERSION = "version";
+    public static final String ANNOTATED_VARIABLES = "annotatedVariables";
+    public static final String SOURCES = "sources";
+
+    public static final String IDENTIFIER = "identifier";
+    public static final String INDEX = "index";
+    public static final String RAW_TYPE = "rawType";
+    public static final String ABSTRACT_TYPE = "abstractType";
+    public static final String VISUAL = "visual";
+    public static final String ATTRIBUTES = "attributes";
+
+    public static final String OPERATION = "operation";
+    public static final String OPERATION_BODY = "operationBody";
+    public static final String SOURCE = "source";
+    public static final String TARGET = "target";
+    public static final String VAR1 = "var1";
+    public static final String VAR2 = "var2";
+    public static final String VALUE = "value";
+    public static final String MESSAGE = "message";
+    public static final String SOURCE_ROWS = "sourceRows";
+    public static final String BEGIN_LINE = "beginLine";
+    public static final String END_LINE = "endLine";
+    public static final String GROUP = "group";
+
+    static final Gson GSON = new Gson();
+    static final Type ATTRIBUTES_TYPE = new TypeToken<HashMap<String, Object>>() {
+    }.getType();
+
+    // ============================================================= //
+    /*
+     *
+     * Gson
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a Gson instance which uses {@link OperationAdapter} and
+     * {@link LocatorAdapter} rather than reflection for the body of the log.
+     *
+     * @return A new Gson instance.
+     */
+    public static Gson createGson () {
+        LocatorAdapter locatorAdapter = new LocatorAdapter();
+        return new GsonBuilder().registerTypeAdapter(Locator.class, locatorAdapter)
+                .registerTypeHierarchyAdapter(Operation.class, new OperationAdapter(locatorAdapter)).create();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Header
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Read the header object of a log.
+     *
+     * @param reader A reader positioned at the start of the header object.
+     * @param parser The parser to use.
+     * @param structs Map to which the annotated variables are added.
+     * @param sources Map to which the sources are added.
+     * @throws IOException If reading fails.
+     */
+    public static void readHeader (JsonReader reader, JsonParser parser, Map<String, DataStructure> structs,
+                                   Map<String, List<String>> sources) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (ANNOTATED_VARIABLES.equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    DataStructure struct = toStructure(parser.parse(reader).getAsJsonObject());
+                    structs.put(struct.identifier, struct);
+                }
+                reader.endObject();
+            } else if (SOURCES.equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String sourceName = reader.nextName();
+                    sources.put(sourceName, toLines(parser.parse(reader).getAsJsonArray()));
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Create a data structure from its JSON representation.
+     *
+     * @param json An entry of the {@code annotatedVariables} map.
+     * @return A new DataStructure.
+     * @throws JsonParseException If the structure could not be created.
+     */
+    public static DataStructure toStructure (JsonObject json) {
+        String identifier = getString(json, IDENTIFIER);
+        if (identifier == null) {
+            throw new JsonParseException("Data structure without identifier: " + json);
+        }
+
+        RawType rawType = RawType.valueOf(getString(json, RAW_TYPE));
+        AbstractType abs = json.has(ABSTRACT_TYPE) ? AbstractType.valueOf(getString(json, ABSTRACT_TYPE)) : null;
+        VisualType vis = json.has(VISUAL) ? VisualType.valueOf(getString(json, VISUAL)) : null;
+        Map<String, Object> attributes = json.has(ATTRIBUTES) ? GSON.fromJson(json.get(ATTRIBUTES), ATTRIBUTES_TYPE)
+                : new HashMap<String, Object>();
+
+        return createStructure(identifier, rawType, abs, vis, attributes);
+    }
+
+    /**
+     * Create a data structure of the given raw type.
+     *
+     * @param identifier The identifier of the structure.
+     * @param rawType The raw type of the structure.
+     * @param abs The abstract type, may be {@code null}.
+     * @param vis The visual type, may be {@code null}.
+     * @param attributes The attributes of the structure.
+     * @return A new DataStructure.
+     */
+    public static DataStructure createStructure (String identifier, RawType rawType, AbstractType abs,
+                                                 VisualType vis, Map<String, Object> attributes) {
+        switch (rawType) {
+            case independentElement:
+                return new IndependentElement(identifier, abs, vis, attributes);
+            case array:
+            case tree:
+            default:
+                return new Array(identifier, abs, vis, attributes);
+        }
+    }
+
+    /**
+     * Convert a JSON array of strings to a list of source lines.
+     *
+     * @param json A JSON array of strings.
+     * @return A list of lines.
+     */
+    public static List<String> toLines (JsonArray json) {
+        List<String> lines = new ArrayList<String>(json.size());
+        for (JsonElement line : json) {
+            lines.add(line.isJsonNull() ? "" : line.getAsString());
+        }
+        return lines;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Body
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create an operation from its JSON representation.
+     *
+     * @param json An element of the log body.
+     * @return A new Operation.
+     * @throws JsonParseException If the operation type is unknown.
+     */
+    public static Operation toOperation (JsonObject json) {
+        OperationType type = OperationType.valueOf(getString(json, OPERATION));
+        JsonObject body = json.has(OPERATION_BODY) ? json.getAsJsonObject(OPERATION_BODY) : new JsonObject();
+
+        Operation op;
+        switch (type) {
+            case read:
+            case write:
+                OP_ReadWrite rw = new OP_ReadWrite(type);
+                rw.setSource(toLocator(body.get(SOURCE)));
+                rw.setTarget(toLocator(body.get(TARGET)));
+                rw.setValue(toDoubles(body.get(VALUE)));
+                op = rw;
+                break;
+            case swap:
+                OP_Swap swap = new OP_Swap();
+                swap.setVar1(toLocator(body.get(VAR1)));
+                swap.setVar2(toLocator(body.get(VAR2)));
+                swap.setValue(toDoubles(body.get(VALUE)));
+                op = swap;
+                break;
+            case remove:
+                OP_ToggleScope toggleScope = new OP_ToggleScope();
+                toggleScope.setTarget(toLocator(body.get(TARGET)));
+                op = toggleScope;
+                break;
+            case message:
+                OP_Message message = new OP_Message();
+                message.setMessage(getString(body, VALUE) != null ? getString(body, VALUE) : getString(body, MESSAGE));
+                op = message;
+                break;
+            default:
+                throw new JsonParseException("Bad operation type: \"" + type + "\"");
+        }
+
+        setMetadata(op, json);
+        return op;
+    }
+
+    /**
+     * Copy the source, source rows and group of an operation from its JSON
+     * representation.
+     *
+     * @param op The operation to update.
+     * @param json The JSON representation of the operation.
+     */
+    private static void setMetadata (Operation op, JsonObject json) {
+        op.source = getString(json, SOURCE);
+
+        if (json.has(SOURCE_ROWS)) {
+            op.sourceRows = toInts(json.get(SOURCE_ROWS));
+        } else if (json.has(BEGIN_LINE)) {
+            int begin = json.get(BEGIN_LINE).getAsInt();
+            int end = json.has(END_LINE) ? json.get(END_LINE).getAsInt() : begin;
+            op.sourceRows = new int[]{begin, end};
+        }
+
+        if (json.has(GROUP)) {
+            op.group = json.get(GROUP).getAsInt();
+        }
+    }
+
+    /**
+     * Create a locator from its JSON representation.
+     *
+     * @param json A JSON object, or {@code null}.
+     * @return A Locator, or {@code null} if {@code json} is {@code null}.
+     */
+    public static Locator toLocator (JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return null;
+        }
+        JsonObject obj = json.getAsJsonObject();
+        return new Locator(getString(obj, IDENTIFIER), toInts(obj.get(INDEX)));
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private static String getString (JsonObject json, String member) {
+        JsonElement e = json.get(member);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+
+    private static double[] toDoubles (JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return null;
+        }
+        if (json.isJsonPrimitive()) {
+            return new double[]{json.getAsDouble()};
+        }
+        JsonArray array = json.getAsJsonArray();
+        double[] doubles = new double[array.size()];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = array.get(i).getAsDouble();
+        }
+        return doubles;
+    }
+
+    private static int[] toInts (JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return null;
+        }
+        JsonArray array = json.getAsJsonArray();
+        int[] ints = new int[array.size()];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = array.get(i).getAsInt();
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,221 @@
+package io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the header and the operations of the body in the raw bytes of a JSON log,
+ * without parsing it. Bytes are fed in order, possibly in several pieces, and the
+ * positions found are reported to a {@link ScanListener}.
+ */
+public class LogScanner {
+
+    private static final byte[] HEADER_KEY = LogJson.HEADER.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY_KEY = LogJson.BODY.getBytes(StandardCharsets.UTF_8);
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final ScanListener listener;
+
+    private int depth;
+    private boolean inString;
+    private boolean escape;
+    private boolean expectKey;
+
+    /**
+     * The start of the current root member name. {@code keyLength} is -1 when not reading
+     * a name.
+     */
+    private final byte[] key = new byte[Math.max(HEADER_KEY.length, BODY_KEY.length)];
+    private int keyLength = -1;
+    private boolean keyOverflow;
+
+    private boolean headerKey;
+    private boolean bodyKey;
+    private boolean inHeader;
+    private boolean inBody;
+    private long start;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LogScanner.
+     *
+     * @param listener The listener to notify.
+     */
+    public LogScanner (ScanListener listener) {
+        this.listener = listener;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Scan the remaining bytes of a buffer. The buffer position is not changed.
+     *
+     * @param buffer The bytes to scan.
+     * @param offset The position in the log of the first remaining byte.
+     */
+    public void scan (ByteBuffer buffer, long offset) {
+        final int first = buffer.position();
+        final int limit = buffer.limit();
+        for (int i = first; i < limit; i++) {
+            scan(buffer.get(i), offset + i - first);
+        }
+    }
+
+    /**
+     * Scan a single byte.
+     *
+     * @param b The byte to scan.
+     * @param pos The position of the byte in the log.
+     */
+    public void scan (byte b, long pos) {
+        if (inString) {
+            if (escape) {
+                escape = false;
+            } else if (b == '\\') {
+                escape = true;
+            } else if (b == '"') {
+                inString = false;
+                if (keyLength >= 0) {
+                    headerKey = !keyOverflow && matches(HEADER_KEY);
+                    bodyKey = !keyOverflow && matches(BODY_KEY);
+                    keyLength = -1;
+                    expectKey = false;
+                }
+            } else if (keyLength >= 0) {
+                if (keyLength < key.length) {
+                    key[keyLength++] = b;
+                } else {
+                    keyOverflow = true;
+                }
+            }
+            return;
+        }
+
+        switch (b) {
+            case '"':
+                inString = true;
+                if (depth == 1 && expectKey) {
+                    keyLength = 0;
+                    keyOverflow = false;
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    expectKey = true;
+                }
+                break;
+            case '{':
+            case '[':
+                depth++;
+                if (depth == 1) {
+                    expectKey = true; // Root object.
+                } else if (depth == 2) {
+                    if (headerKey && b == '{') {
+                        inHeader = true;
+                        start = pos;
+                    } else if (bodyKey && b == '[') {
+                        inBody = true;
+                        listener.bodyStart(pos);
+                    }
+                } else if (depth == 3 && inBody) {
+                    start = pos;
+                }
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth == 2 && inBody) {
+                    listener.operationFound(start, pos + 1);
+                } else if (depth == 1) {
+                    if (inHeader) {
+                        inHeader = false;
+                        listener.headerFound(start, pos + 1);
+                    } else if (inBody) {
+                        inBody = false;
+                        listener.bodyEnd(pos);
+                    }
+                    headerKey = false;
+                    bodyKey = false;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean matches (byte[] name) {
+        if (keyLength != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (key[i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Listener interface for {@code LogScanner}. Positions are byte offsets in the log.
+     */
+    public interface ScanListener {
+
+        /**
+         * Called when the header object has been found.
+         *
+         * @param start The position of the opening brace.
+         * @param end The position after the closing brace.
+         */
+        void headerFound (long start, long end);
+
+        /**
+         * Called when the body array starts.
+         *
+         * @param position The position of the opening bracket.
+         */
+        void bodyStart (long position);
+
+        /**
+         * Called for every operation of the body, in order.
+         *
+         * @param start The position of the opening brace.
+         * @param end The position after the closing brace.
+         */
+        void operationFound (long start, long end);
+
+        /**
+         * Called when the body array ends.
+         *
+         * @param position The position of the closing bracket.
+         */
+        void bodyEnd (long position);
+    }
+}
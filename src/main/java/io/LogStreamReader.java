@@ -0,0 +1,439 @@
+package io;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import javafx.application.Platform;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a log file piece by piece. The header (annotated variables and sources) is
+ * delivered first, followed by the operations of the body in batches. Unlike
+ * {@code LogStreamManager.readLog(File)}, the entire log is never held in memory as a
+ * JSON tree.
+ */
+public class LogStreamReader {
+
+    /**
+     * Files larger than this should be read using a {@code LogStreamReader}.
+     */
+    public static final long STREAMING_THRESHOLD = 16 * 1024 * 1024;
+
+    /**
+     * Default number of operations per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    /**
+     * Maximum number of batches delivered to the FX thread but not yet consumed.
+     */
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    /**
+     * Extension of gzip-compressed logs.
+     */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The file to read.
+     */
+    private final File file;
+
+    /**
+     * Number of operations per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Indicates that reading should stop as soon as possible.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Limits the number of batches waiting for the FX thread.
+     */
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+    /**
+     * Decoder for the operations of the body.
+     */
+    private final OperationAdapter operationAdapter = new OperationAdapter();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LogStreamReader.
+     *
+     * @param file The file to read.
+     * @param batchSize The number of operations per batch.
+     */
+    public LogStreamReader (File file, int batchSize) {
+        this.file = file;
+        this.batchSize = batchSize < 1 ? 1 : batchSize;
+    }
+
+    /**
+     * Create a new LogStreamReader using {@link #DEFAULT_BATCH_SIZE}.
+     *
+     * @param file The file to read.
+     */
+    public LogStreamReader (File file) {
+        this(file, DEFAULT_BATCH_SIZE);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Read the log on a background thread. The listener is called on the JavaFX
+     * Application thread. The reader will wait for the listener if it falls behind.
+     *
+     * @param listener The listener to notify.
+     */
+    public void readAsync (ReadListener listener) {
+        FXListener fxListener = new FXListener(listener);
+        Thread thread = new Thread(() -> {
+            try {
+                read(fxListener);
+            } catch (IOException | RuntimeException exception) {
+                fxListener.readFailed(exception);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }, "LogStreamReader: " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Read the log on the current thread.
+     *
+     * @param listener The listener to notify.
+     * @throws IOException If the file could not be read.
+     * @throws InterruptedException If the thread was interrupted while waiting for the
+     * listener.
+     */
+    public void read (ReadListener listener) throws IOException, InterruptedException {
+        try (JsonReader reader = new JsonReader(openReader())) {
+            read(reader, listener);
+        }
+    }
+
+    /**
+     * Stop reading as soon as possible. No more batches will be delivered.
+     */
+    public void cancel () {
+        cancelled = true;
+    }
+
+    /**
+     * Returns {@code true} if this reader has been cancelled.
+     *
+     * @return {@code true} if this reader has been cancelled.
+     */
+    public boolean isCancelled () {
+        return cancelled;
+    }
+
+    /**
+     * Returns the number of operations per batch.
+     *
+     * @return The number of operations per batch.
+     */
+    public int getBatchSize () {
+        return batchSize;
+    }
+
+    /**
+     * Returns the file read by this reader.
+     *
+     * @return The file read by this reader.
+     */
+    public File getFile () {
+        return file;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns {@code true} if {@code file} is gzip-compressed, judging by its name.
+     *
+     * @param file A file.
+     * @return {@code true} if {@code file} has the {@link #GZIP_EXTENSION} extension.
+     */
+    public static boolean isCompressed (File file) {
+        return file.getName().toLowerCase().endsWith(GZIP_EXTENSION);
+    }
+
+    /**
+     * Open a character stream for the file. Compressed files are decompressed on a
+     * separate thread, ahead of the parser.
+     *
+     * @return A Reader for the file.
+     * @throws IOException If the file could not be opened.
+     */
+    protected Reader openReader () throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (isCompressed(file)) {
+            in = new ReadAheadInputStream(new GZIPInputStream(in, BUFFER_SIZE), "Decompressor: " + file.getName());
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void read (JsonReader reader, ReadListener listener) throws IOException, InterruptedException {
+        JsonParser parser = new JsonParser();
+        List<Operation> early = null; // Operations found before the header.
+        boolean headerRead = false;
+        int total = 0;
+
+        reader.beginObject();
+        while (reader.hasNext() && !cancelled) {
+            String name = reader.nextName();
+
+            if (LogJson.HEADER.equals(name)) {
+                readHeader(reader, parser, listener);
+                headerRead = true;
+                if (early != null) {
+                    deliver(early, listener);
+                    early = null;
+                }
+            } else if (LogJson.BODY.equals(name)) {
+                if (headerRead) {
+                    total += readBody(reader, listener);
+                } else {
+                    early = new ArrayList<Operation>();
+                    total += readBody(reader, early);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        if (cancelled) {
+            return;
+        }
+        if (!headerRead) {
+            // No header - notify anyway so that the listener can create its visuals.
+            listener.headerRead(new HashMap<String, DataStructure>(), new HashMap<String, List<String>>());
+            if (early != null) {
+                deliver(early, listener);
+            }
+        }
+        listener.readFinished(total);
+    }
+
+    /**
+     * Read the header object and notify the listener.
+     *
+     * @param reader A reader positioned at the start of the header object.
+     * @param parser The parser to use.
+     * @param listener The listener to notify.
+     * @throws IOException If reading fails.
+     */
+    protected void readHeader (JsonReader reader, JsonParser parser, ReadListener listener) throws IOException {
+        Map<String, DataStructure> structs = new HashMap<String, DataStructure>();
+        Map<String, List<String>> sources = new HashMap<String, List<String>>();
+        LogJson.readHeader(reader, parser, structs, sources);
+
+        listener.headerRead(structs, sources);
+    }
+
+    /**
+     * Read the body, delivering operations in batches.
+     */
+    private int readBody (JsonReader reader, ReadListener listener) throws IOException, InterruptedException {
+        int count = 0;
+        List<Operation> batch = new ArrayList<Operation>(batchSize);
+
+        reader.beginArray();
+        while (reader.hasNext() && !cancelled) {
+            batch.add(readOperation(reader));
+            count++;
+            if (batch.size() == batchSize) {
+                deliver(batch, listener);
+                batch = new ArrayList<Operation>(batchSize);
+            }
+        }
+        if (cancelled) {
+            return count;
+        }
+        reader.endArray();
+
+        if (!batch.isEmpty()) {
+            deliver(batch, listener);
+        }
+        return count;
+    }
+
+    /**
+     * Read the body into a list.
+     */
+    private int readBody (JsonReader reader, List<Operation> target) throws IOException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext() && !cancelled) {
+            target.add(readOperation(reader));
+            count++;
+        }
+        if (!cancelled) {
+            reader.endArray();
+        }
+        return count;
+    }
+
+    /**
+     * Read a single operation from the body.
+     *
+     * @param reader A reader positioned at the start of an operation.
+     * @return An Operation.
+     * @throws IOException If reading fails.
+     */
+    protected Operation readOperation (JsonReader reader) throws IOException {
+        return operationAdapter.read(reader);
+    }
+
+    /**
+     * Deliver a batch of operations to the listener. Will block if the JavaFX Application
+     * thread has fallen behind.
+     *
+     * @param batch The batch to deliver.
+     * @param listener The listener to notify.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    protected void deliver (List<Operation> batch, ReadListener listener) throws InterruptedException {
+        if (listener instanceof FXListener) {
+            pendingBatches.acquire();
+        }
+        listener.operationsRead(batch);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Listener interface for {@code LogStreamReader}.
+     */
+    public interface ReadListener {
+
+        /**
+         * Called once, before any operations are delivered.
+         *
+         * @param structs The annotated variables of the log.
+         * @param sources The sources of the log.
+         */
+        void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources);
+
+        /**
+         * Called for every batch of operations, in order.
+         *
+         * @param operations A batch of operations.
+         */
+        void operationsRead (List<Operation> operations);
+
+        /**
+         * Called when the entire log has been read.
+         *
+         * @param totalOperations The total number of operations read.
+         */
+        void readFinished (int totalOperations);
+
+        /**
+         * Called if reading fails. No further calls will be made.
+         *
+         * @param exception The cause of the failure.
+         */
+        void readFailed (Exception exception);
+    }
+
+    /**
+     * Forwards calls to the JavaFX Application thread.
+     */
+    private class FXListener implements ReadListener {
+
+        private final ReadListener listener;
+
+        private FXListener (ReadListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+            Platform.runLater(() -> {
+                if (!cancelled) {
+                    listener.headerRead(structs, sources);
+                }
+            });
+        }
+
+        @Override
+        public void operationsRead (List<Operation> operations) {
+            Platform.runLater(() -> {
+                pendingBatches.release();
+                if (!cancelled) {
+                    listener.operationsRead(operations);
+                }
+            });
+        }
+
+        @Override
+        public void readFinished (int totalOperations) {
+            Platform.runLater(() -> {
+                if (!cancelled) {
+                    listener.readFinished(totalOperations);
+                }
+            });
+        }
+
+        @Override
+        public void readFailed (Exception exception) {
+            Platform.runLater(() -> listener.readFailed(exception));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Writes a session to a log file piece by piece. Operations are serialized straight
+ * from the list they are kept in, a batch at a time, so no JSON tree or string of the
+ * entire log is ever built. The format is decided by the name of the file: binary traces
+ * ({@link BinaryLog#EXTENSION}), compressed JSON ({@link LogStreamReader#GZIP_EXTENSION})
+ * or plain JSON.
+ */
+public class LogStreamWriter {
+
+    /**
+     * Default number of operations per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final File file;
+    private final Map<String, DataStructure> structs;
+    private final Map<String, List<String>> sources;
+    private final List<Operation> operations;
+    private final int batchSize;
+
+    /**
+     * Indicates that writing should stop as soon as possible.
+     */
+    private volatile boolean cancelled;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LogStreamWriter. The structures and sources are copied immediately.
+     * The operations are read batch by batch while writing.
+     *
+     * @param file The file to write.
+     * @param structs The annotated variables of the session.
+     * @param sources The sources of the session, may be {@code null}.
+     * @param operations The operations of the session.
+     */
+    public LogStreamWriter (File file, Map<String, DataStructure> structs, Map<String, List<String>> sources,
+                            List<Operation> operations) {
+        this.file = file;
+        this.structs = new HashMap<String, DataStructure>(structs);
+        this.sources = sources == null ? null : new HashMap<String, List<String>>(sources);
+        this.operations = operations;
+        batchSize = DEFAULT_BATCH_SIZE;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Write the log on a background thread. Must be called on the JavaFX Application
+     * thread. The operation list is only accessed on the JavaFX Application thread, and the
+     * listener is called on it.
+     *
+     * @param listener The listener to notify.
+     */
+    public void writeAsync (WriteListener listener) {
+        final int total = operations.size();
+        Thread thread = new Thread(() -> {
+            try {
+                write(total, this::fetchOnFXThread, new WriteListener() {
+
+                    @Override
+                    public void progress (int written, int total) {
+                        Platform.runLater(() -> listener.progress(written, total));
+                    }
+
+                    @Override
+                    public void writeFinished (int written) {
+                        Platform.runLater(() -> listener.writeFinished(written));
+                    }
+
+                    @Override
+                    public void writeFailed (Exception exception) {
+                        Platform.runLater(() -> listener.writeFailed(exception));
+                    }
+                });
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }, "LogStreamWriter: " + file.getName());
+        // Not a daemon - the log should be completed even if the window is closed.
+        thread.start();
+    }
+
+    /**
+     * Write the log on the current thread. The operation list must not be modified while
+     * writing.
+     *
+     * @param listener The listener to notify.
+     */
+    public void write (WriteListener listener) {
+        try {
+            write(operations.size(), (from, to) -> new ArrayList<Operation>(operations.subList(from, to)),
+                    listener);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop writing as soon as possible. The log will be incomplete.
+     */
+    public void cancel () {
+        cancelled = true;
+    }
+
+    /**
+     * Returns the file written by this writer.
+     *
+     * @return The file written by this writer.
+     */
+    public File getFile () {
+        return file;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private void write (int total, BatchSource source, WriteListener listener) throws InterruptedException {
+        int written = 0;
+        try (LogWriter writer = openWriter()) {
+            writer.writeHeader(structs, sources);
+            while (written < total && !cancelled) {
+                List<Operation> batch = source.fetch(written, Math.min(total, written + batchSize));
+                writer.writeOperations(batch);
+                written += batch.size();
+                listener.progress(written, total);
+            }
+        } catch (IOException | RuntimeException exception) {
+            listener.writeFailed(exception);
+            return;
+        }
+
+        if (cancelled) {
+            listener.writeFailed(new InterruptedIOException("Cancelled: " + file));
+        } else {
+            listener.writeFinished(written);
+        }
+    }
+
+    private LogWriter openWriter () throws IOException {
+        return BinaryLog.isBinaryLog(file) ? new BinaryLogWriter(file) : new JsonLogWriter(file, false);
+    }
+
+    /**
+     * Copy a batch of operations on the JavaFX Application thread.
+     */
+    private List<Operation> fetchOnFXThread (int from, int to) throws InterruptedException {
+        FutureTask<List<Operation>> task = new FutureTask<List<Operation>>(() -> {
+            if (to > operations.size()) {
+                throw new IllegalStateException("Operations removed while saving.");
+            }
+            return new ArrayList<Operation>(operations.subList(from, to));
+        });
+        Platform.runLater(task);
+        try {
+            return task.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Supplies batches of operations to write.
+     */
+    private interface BatchSource {
+        List<Operation> fetch (int from, int to) throws InterruptedException;
+    }
+
+    /**
+     * Listener interface for {@code LogStreamWriter}.
+     */
+    public interface WriteListener {
+
+        /**
+         * Called after every batch of operations.
+         *
+         * @param written The number of operations written so far.
+         * @param total The total number of operations to write.
+         */
+        void progress (int written, int total);
+
+        /**
+         * Called when the log is complete.
+         *
+         * @param written The number of operations written.
+         */
+        void writeFinished (int written);
+
+        /**
+         * Called if writing fails. No further calls will be made.
+         *
+         * @param exception The cause of the failure.
+         */
+        void writeFailed (Exception exception);
+    }
+}
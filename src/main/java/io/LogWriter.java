@@ -0,0 +1,33 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a log one batch of operations at a time.
+ */
+public interface LogWriter extends Closeable {
+
+    /**
+     * Write the header of the log. Must be called once, before any operations are
+     * written.
+     *
+     * @param structs The annotated variables of the log.
+     * @param sources The sources of the log, may be {@code null}.
+     * @throws IOException If writing fails.
+     */
+    void writeHeader (Map<String, DataStructure> structs, Map<String, List<String>> sources) throws IOException;
+
+    /**
+     * Write operations.
+     *
+     * @param ops The operations to write.
+     * @throws IOException If writing fails.
+     */
+    void writeOperations (List<Operation> ops) throws IOException;
+}
@@ -0,0 +1,414 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.io.ComListener;
+import contract.io.Communicator;
+import contract.wrapper.Header;
+import contract.wrapper.Operation;
+import contract.wrapper.Wrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process {@link Communicator}. Messages are queued and announced to a
+ * {@link ComListener} with the type {@link #LOOPBACK_MESSAGE}, and collected using
+ * {@link #pollMessages()}, or {@link #getAllQueuedMessages()} as for any communicator. A
+ * log can be replayed as a stream of messages, either at a fixed rate or as fast as the
+ * listener keeps up. Every message carries the name of the producer, a sequence number and
+ * a timestamp, so that several loopbacks can be merged in order.<br>
+ * <br>
+ * Intended for measuring and testing live ingestion without networking.
+ */
+public class LoopbackCommunicator implements Communicator {
+
+    /**
+     * The message type passed to the listener for queued messages. Below the member update
+     * types (10 and up), but distinct from the data messages of a channel.
+     */
+    public static final short LOOPBACK_MESSAGE = 9;
+
+    /**
+     * Default number of operations per replayed message.
+     */
+    public static final int DEFAULT_MESSAGE_SIZE = 100;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final ComListener listener;
+    private final String producer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentLinkedQueue<Message> queue = new ConcurrentLinkedQueue<Message>();
+
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong sentOperations = new AtomicLong();
+
+    private volatile boolean stopped;
+    private Thread replayThread;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new LoopbackCommunicator.
+     *
+     * @param listener The listener to notify when a message has been queued.
+     * @param producer The name of the producer, included in every message.
+     */
+    public LoopbackCommunicator (ComListener listener, String producer) {
+        this.listener = listener;
+        this.producer = producer;
+    }
+
+    /**
+     * Create a new LoopbackCommunicator with the producer name {@code "loopback"}.
+     *
+     * @param listener The listener to notify when a message has been queued.
+     */
+    public LoopbackCommunicator (ComListener listener) {
+        this(listener, "loopback");
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Queue a message and notify the listener on the current thread.
+     *
+     * @param structs The structures of the message, or {@code null}.
+     * @param sources The sources of the message, or {@code null}.
+     * @param operations The operations of the message, or {@code null}.
+     */
+    public void send (Map<String, DataStructure> structs, Map<String, List<String>> sources,
+                      List<Operation> operations) {
+        Message message;
+        synchronized (queue) { // Keep sequence numbers in queue order.
+            message = new Message(producer, sequence.getAndIncrement(), structs, sources, operations);
+            queue.add(message);
+        }
+        sentMessages.incrementAndGet();
+        sentOperations.addAndGet(message.getOperations().size());
+        listener.messageReceived(LOOPBACK_MESSAGE);
+    }
+
+    @Override
+    public boolean sendWrapper (Wrapper outgoing) {
+        Header header = outgoing.header;
+        send(header == null ? null : header.annotatedVariables, header == null ? null : header.sources,
+                outgoing.body);
+        return true;
+    }
+
+    /**
+     * Remove and return all queued messages, oldest first.
+     *
+     * @return The queued messages.
+     */
+    public List<Message> pollMessages () {
+        List<Message> messages = new ArrayList<Message>();
+        Message message;
+        while ((message = queue.poll()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Remove and return all queued messages as wrappers, oldest first. Producers, sequence
+     * numbers and timestamps are lost; use {@link #pollMessages()} to keep them.
+     *
+     * @return The queued messages.
+     */
+    @Override
+    public List<Wrapper> getAllQueuedMessages () {
+        List<Wrapper> wrappers = new ArrayList<Wrapper>();
+        for (Message message : pollMessages()) {
+            Header header = message.getStructures() == null ? null : new Header(0, message.getStructures(),
+                    message.getSources());
+            wrappers.add(new Wrapper(header, message.getOperations()));
+        }
+        return wrappers;
+    }
+
+    /**
+     * Stop replaying. Messages already queued are kept.
+     */
+    @Override
+    public void close () {
+        stop();
+    }
+
+    /**
+     * Replay a log on the current thread. The header is sent with the first message.
+     *
+     * @param log The log to replay.
+     * @param opsPerSecond The rate to send operations at, or {@code 0} to send as fast as
+     * possible.
+     * @param messageSize The number of operations per message.
+     * @throws IOException If the log could not be read.
+     * @throws InterruptedException If interrupted while pacing.
+     */
+    public void replay (File log, double opsPerSecond, int messageSize) throws IOException, InterruptedException {
+        final int size = messageSize < 1 ? 1 : messageSize;
+        final long start = System.nanoTime();
+
+        LogStreamReader reader = BinaryLog.isBinaryLog(log) ? new BinaryLogReader(log) : new LogStreamReader(log);
+        reader.read(new LogStreamReader.ReadListener() {
+
+            private Map<String, DataStructure> structs;
+            private Map<String, List<String>> sources;
+            private long sent;
+
+            @Override
+            public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+                this.structs = structs;
+                this.sources = sources;
+            }
+
+            @Override
+            public void operationsRead (List<Operation> operations) {
+                for (int from = 0; from < operations.size() && !stopped; from += size) {
+                    List<Operation> ops = operations.subList(from, Math.min(operations.size(), from + size));
+                    if (opsPerSecond > 0) {
+                        pace(start + (long) (sent * 1e9 / opsPerSecond));
+                    }
+                    send(structs, sources, new ArrayList<Operation>(ops));
+                    structs = null;
+                    sources = null;
+                    sent += ops.size();
+                }
+                if (stopped) {
+                    reader.cancel();
+                }
+            }
+
+            @Override
+            public void readFinished (int totalOperations) {
+                if (structs != null) {
+                    send(structs, sources, null); // Empty log.
+                }
+            }
+
+            @Override
+            public void readFailed (Exception exception) {
+            }
+        });
+    }
+
+    /**
+     * Replay a log on a background thread.
+     *
+     * @param log The log to replay.
+     * @param opsPerSecond The rate to send operations at, or {@code 0} to send as fast as
+     * possible.
+     * @param messageSize The number of operations per message.
+     * @param onFailure Called on the replay thread if the log could not be read. May be
+     * {@code null}.
+     * @param onFinished Called on the replay thread when the replay ends, whether it
+     * finished, failed or was stopped. May be {@code null}.
+     */
+    public synchronized void replayAsync (File log, double opsPerSecond, int messageSize,
+                                          ReplayFailedListener onFailure, Runnable onFinished) {
+        stop();
+        stopped = false;
+        replayThread = new Thread(() -> {
+            try {
+                replay(log, opsPerSecond, messageSize);
+            } catch (IOException | RuntimeException exception) {
+                if (onFailure != null) {
+                    onFailure.replayFailed(exception);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+            }
+        }, "LoopbackCommunicator: " + log.getName());
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    /**
+     * Stop replaying. Messages already queued are kept.
+     */
+    public synchronized void stop () {
+        stopped = true;
+        if (replayThread != null) {
+            replayThread.interrupt();
+            replayThread = null;
+        }
+    }
+
+    /**
+     * Sleep until {@code deadline}, as given by {@link System#nanoTime()}.
+     */
+    private void pace (long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !stopped) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException exception) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the name of the producer, included in every message.
+     *
+     * @return The name of the producer.
+     */
+    public String getProducer () {
+        return producer;
+    }
+
+    /**
+     * Returns the number of messages sent.
+     *
+     * @return The number of messages sent.
+     */
+    public long getSentMessages () {
+        return sentMessages.get();
+    }
+
+    /**
+     * Returns the number of operations sent.
+     *
+     * @return The number of operations sent.
+     */
+    public long getSentOperations () {
+        return sentOperations.get();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * A message queued by a {@code LoopbackCommunicator}.
+     */
+    public static class Message {
+
+        private final String producer;
+        private final long sequence;
+        private final Map<String, DataStructure> structs;
+        private final Map<String, List<String>> sources;
+        private final List<Operation> operations;
+        private final long sentNanos = System.nanoTime();
+
+        private Message (String producer, long sequence, Map<String, DataStructure> structs,
+                         Map<String, List<String>> sources, List<Operation> operations) {
+            this.producer = producer;
+            this.sequence = sequence;
+            this.structs = structs;
+            this.sources = sources;
+            this.operations = operations == null ? Collections.<Operation>emptyList() : operations;
+        }
+
+        /**
+         * Returns the name of the producer of the message.
+         *
+         * @return The name of the producer.
+         */
+        public String getProducer () {
+            return producer;
+        }
+
+        /**
+         * Returns the position of the message among the messages of its producer, starting
+         * from zero.
+         *
+         * @return The sequence number of the message.
+         */
+        public long getSequence () {
+            return sequence;
+        }
+
+        /**
+         * Returns the structures of the message.
+         *
+         * @return The structures of the message, or {@code null}.
+         */
+        public Map<String, DataStructure> getStructures () {
+            return structs;
+        }
+
+        /**
+         * Returns the sources of the message.
+         *
+         * @return The sources of the message, or {@code null}.
+         */
+        public Map<String, List<String>> getSources () {
+            return sources;
+        }
+
+        /**
+         * Returns the operations of the message.
+         *
+         * @return The operations of the message.
+         */
+        public List<Operation> getOperations () {
+            return operations;
+        }
+
+        /**
+         * Returns the time the message was sent, as given by {@link System#nanoTime()}.
+         *
+         * @return The time the message was sent.
+         */
+        public long getSentNanos () {
+            return sentNanos;
+        }
+    }
+
+    /**
+     * Listener for failed replays.
+     */
+    public interface ReplayFailedListener {
+
+        /**
+         * Called if a replay fails.
+         *
+         * @param exception The cause of the failure.
+         */
+        void replayFailed (Exception exception);
+    }
+}
@@ -0,0 +1,333 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads several logs concurrently and merges them into a single set of structures,
+ * sources and operations. Files are parsed on virtual threads when the runtime supports
+ * them, and on a fixed pool otherwise. In both cases, at most one file per core is parsed
+ * at a time.
+ */
+public class MultiLogReader {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final List<File> files;
+    private final int parallelism;
+
+    /**
+     * Snapshots to read instead of the logs, or {@code null}.
+     */
+    private TraceCache cache;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new MultiLogReader.
+     *
+     * @param files The files to read.
+     * @param parallelism The maximum number of files read at the same time.
+     */
+    public MultiLogReader (List<File> files, int parallelism) {
+        this.files = new ArrayList<File>(files);
+        this.parallelism = parallelism < 1 ? 1 : parallelism;
+    }
+
+    /**
+     * Create a new MultiLogReader which reads one file per available core at a time.
+     *
+     * @param files The files to read.
+     */
+    public MultiLogReader (List<File> files) {
+        this(files, Runtime.getRuntime().availableProcessors());
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Read all files on a background thread. The listener is called once, on the JavaFX
+     * Application thread.
+     *
+     * @param listener The listener to notify.
+     */
+    public void readAsync (MultiReadListener listener) {
+        Thread thread = new Thread(() -> {
+            try {
+                Result result = read();
+                Platform.runLater(() -> listener.readFinished(result));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }, "MultiLogReader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Read all files on the current thread, merging the results in the order the files
+     * were given. Files which fail are reported in the result rather than aborting the
+     * others.
+     *
+     * @return The merged logs.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public Result read () throws InterruptedException {
+        ExecutorService executor = createExecutor();
+        Semaphore permits = new Semaphore(parallelism);
+
+        List<Future<Parsed>> futures = new ArrayList<Future<Parsed>>(files.size());
+        try {
+            for (File file : files) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return parse(file, cache == null ? null : cache.lookup(file));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            Result result = new Result();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    result.merge(futures.get(i).get());
+                } catch (ExecutionException exception) {
+                    result.failed.put(files.get(i), exception.getCause());
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the cached snapshots of logs instead of the logs themselves, where there are
+     * any. The cache is looked up on the worker threads.
+     *
+     * @param cache The cache to use, or {@code null} to always read the logs.
+     */
+    public void setCache (TraceCache cache) {
+        this.cache = cache;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Parse a single file completely, or its snapshot if {@code cached} is not
+     * {@code null}.
+     */
+    private static Parsed parse (File file, File cached) throws IOException, InterruptedException {
+        LogStreamReader reader;
+        if (cached != null) {
+            reader = new BinaryLogReader(cached);
+        } else {
+            reader = BinaryLog.isBinaryLog(file) ? new BinaryLogReader(file) : new LogStreamReader(file);
+        }
+        Parsed parsed = new Parsed(file);
+        reader.read(parsed);
+        return parsed;
+    }
+
+    /**
+     * Returns an executor running every task on a new virtual thread, or a fixed pool if
+     * virtual threads are not available.
+     */
+    private ExecutorService createExecutor () {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            return Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, files.size())), runnable -> {
+                Thread thread = new Thread(runnable, "MultiLogReader worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The contents of a single log.
+     */
+    private static class Parsed implements LogStreamReader.ReadListener {
+
+        private final File file;
+        private Map<String, DataStructure> structs;
+        private Map<String, List<String>> sources;
+        private final List<Operation> operations = new ArrayList<Operation>();
+
+        private Parsed (File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void headerRead (Map<String, DataStructure> structs, Map<String, List<String>> sources) {
+            this.structs = structs;
+            this.sources = sources;
+        }
+
+        @Override
+        public void operationsRead (List<Operation> operations) {
+            this.operations.addAll(operations);
+        }
+
+        @Override
+        public void readFinished (int totalOperations) {
+        }
+
+        @Override
+        public void readFailed (Exception exception) {
+        }
+    }
+
+    /**
+     * The merged contents of several logs.
+     */
+    public static class Result {
+
+        private final Map<String, DataStructure> structs = new LinkedHashMap<String, DataStructure>();
+        private final Map<String, List<String>> sources = new LinkedHashMap<String, List<String>>();
+        private final List<Operation> operations = new ArrayList<Operation>();
+        private final List<File> read = new ArrayList<File>();
+        private final Map<File, Throwable> failed = new LinkedHashMap<File, Throwable>();
+        /**
+         * The last of the later declarations of identifiers declared by several logs.
+         */
+        private final Map<String, DataStructure> collisions = new LinkedHashMap<String, DataStructure>();
+
+        private void merge (Parsed parsed) {
+            // The first declaration of an identifier wins, unless useLaterDeclarations() is called.
+            for (Map.Entry<String, DataStructure> entry : parsed.structs.entrySet()) {
+                if (structs.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    collisions.put(entry.getKey(), entry.getValue());
+                }
+            }
+            sources.putAll(parsed.sources);
+            operations.addAll(parsed.operations);
+            read.add(parsed.file);
+        }
+
+        /**
+         * Replace the first declaration of every identifier in {@link #getCollisions()}
+         * with the last one.
+         */
+        public void useLaterDeclarations () {
+            structs.putAll(collisions);
+        }
+
+        /**
+         * Returns the identifiers declared by more than one log, mapped to their last
+         * declaration. {@link #getStructures()} holds the first declaration.
+         *
+         * @return The colliding declarations.
+         */
+        public Map<String, DataStructure> getCollisions () {
+            return Collections.unmodifiableMap(collisions);
+        }
+
+        /**
+         * Returns the structures of all logs.
+         *
+         * @return The structures of all logs.
+         */
+        public Map<String, DataStructure> getStructures () {
+            return structs;
+        }
+
+        /**
+         * Returns the sources of all logs.
+         *
+         * @return The sources of all logs.
+         */
+        public Map<String, List<String>> getSources () {
+            return sources;
+        }
+
+        /**
+         * Returns the operations of all logs, in the order the files were given.
+         *
+         * @return The operations of all logs.
+         */
+        public List<Operation> getOperations () {
+            return operations;
+        }
+
+        /**
+         * Returns the files which were read successfully.
+         *
+         * @return The files which were read successfully.
+         */
+        public List<File> getRead () {
+            return Collections.unmodifiableList(read);
+        }
+
+        /**
+         * Returns the files which could not be read, and the reason.
+         *
+         * @return The files which could not be read.
+         */
+        public Map<File, Throwable> getFailed () {
+            return Collections.unmodifiableMap(failed);
+        }
+    }
+
+    /**
+     * Listener interface for {@code MultiLogReader}.
+     */
+    public interface MultiReadListener {
+
+        /**
+         * Called when all files have been read.
+         *
+         * @param result The merged logs.
+         */
+        void readFinished (Result result);
+    }
+}
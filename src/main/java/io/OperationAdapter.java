@@ -0,0 +1,321 @@
+package io;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import contract.operation.OP_Message;
+import contract.operation.OP_ReadWrite;
+import contract.operation.OP_Swap;
+import contract.operation.OP_ToggleScope;
+import contract.operation.OperationType;
+import contract.wrapper.Locator;
+import contract.wrapper.Operation;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the operations of the log body ({@link OP_ReadWrite}, {@link OP_Swap},
+ * {@link OP_ToggleScope} and {@link OP_Message}) directly from the token stream, without
+ * reflection or an intermediate JSON tree. Value arrays are parsed straight into
+ * {@code double[]}. Instances are thread safe.
+ */
+public class OperationAdapter extends TypeAdapter<Operation> {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Adapter for the locators of the operation body.
+     */
+    private final LocatorAdapter locatorAdapter;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new OperationAdapter.
+     *
+     * @param locatorAdapter The adapter to use for locators.
+     */
+    public OperationAdapter (LocatorAdapter locatorAdapter) {
+        this.locatorAdapter = locatorAdapter;
+    }
+
+    /**
+     * Create a new OperationAdapter with its own {@link LocatorAdapter}.
+     */
+    public OperationAdapter () {
+        this(new LocatorAdapter());
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public Operation read (JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        // The members may come in any order, so collect everything before creating the
+        // operation.
+        Body body = new Body();
+        OperationType type = null;
+        String source = null;
+        int[] sourceRows = null;
+        int beginLine = -1;
+        int endLine = -1;
+        int group = -1;
+        boolean hasGroup = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case LogJson.OPERATION:
+                    type = toType(in.nextString());
+                    break;
+                case LogJson.OPERATION_BODY:
+                    readBody(in, body);
+                    break;
+                case LogJson.SOURCE:
+                    source = locatorAdapter.intern(in.nextString());
+                    break;
+                case LogJson.SOURCE_ROWS:
+                    sourceRows = LocatorAdapter.readInts(in);
+                    break;
+                case LogJson.BEGIN_LINE:
+                    beginLine = in.nextInt();
+                    break;
+                case LogJson.END_LINE:
+                    endLine = in.nextInt();
+                    break;
+                case LogJson.GROUP:
+                    group = in.nextInt();
+                    hasGroup = true;
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        if (type == null) {
+            throw new JsonParseException("Operation without type at " + in.getPath());
+        }
+
+        Operation op = create(type, body);
+        op.source = source;
+        if (sourceRows != null) {
+            op.sourceRows = sourceRows;
+        } else if (beginLine >= 0) {
+            op.sourceRows = new int[]{beginLine, endLine >= 0 ? endLine : beginLine};
+        }
+        if (hasGroup) {
+            op.group = group;
+        }
+        return op;
+    }
+
+    @Override
+    public void write (JsonWriter out, Operation op) throws IOException {
+        if (op == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(LogJson.OPERATION).value(op.operation.toString());
+        out.name(LogJson.OPERATION_BODY).beginObject();
+        switch (op.operation) {
+            case read:
+            case write:
+                OP_ReadWrite rw = (OP_ReadWrite) op;
+                writeLocator(out, LogJson.SOURCE, rw.getSource());
+                writeLocator(out, LogJson.TARGET, rw.getTarget());
+                writeDoubles(out, rw.getValue());
+                break;
+            case swap:
+                OP_Swap swap = (OP_Swap) op;
+                writeLocator(out, LogJson.VAR1, swap.getVar1());
+                writeLocator(out, LogJson.VAR2, swap.getVar2());
+                writeDoubles(out, swap.getValue());
+                break;
+            case remove:
+                writeLocator(out, LogJson.TARGET, ((OP_ToggleScope) op).getTarget());
+                break;
+            case message:
+                String message = ((OP_Message) op).getMessage();
+                if (message != null) {
+                    out.name(LogJson.VALUE).value(message);
+                }
+                break;
+            default:
+                break;
+        }
+        out.endObject();
+
+        if (op.source != null) {
+            out.name(LogJson.SOURCE).value(op.source);
+        }
+        if (op.sourceRows != null && op.sourceRows.length > 0) {
+            out.name(LogJson.BEGIN_LINE).value(op.sourceRows[0]);
+            out.name(LogJson.END_LINE).value(op.sourceRows[op.sourceRows.length - 1]);
+        }
+        if (op.group != -1) {
+            out.name(LogJson.GROUP).value(op.group);
+        }
+        out.endObject();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private void readBody (JsonReader in, Body body) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case LogJson.SOURCE:
+                    body.source = locatorAdapter.read(in);
+                    break;
+                case LogJson.TARGET:
+                    body.target = locatorAdapter.read(in);
+                    break;
+                case LogJson.VAR1:
+                    body.var1 = locatorAdapter.read(in);
+                    break;
+                case LogJson.VAR2:
+                    body.var2 = locatorAdapter.read(in);
+                    break;
+                case LogJson.VALUE:
+                    if (in.peek() == JsonToken.STRING) {
+                        body.message = in.nextString(); // Message, or a number as a string.
+                    } else {
+                        body.value = LocatorAdapter.readDoubles(in);
+                    }
+                    break;
+                case LogJson.MESSAGE:
+                    body.message = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+    }
+
+    private static Operation create (OperationType type, Body body) {
+        switch (type) {
+            case read:
+            case write:
+                OP_ReadWrite rw = new OP_ReadWrite(type);
+                rw.setSource(body.source);
+                rw.setTarget(body.target);
+                rw.setValue(body.getValue());
+                return rw;
+            case swap:
+                OP_Swap swap = new OP_Swap();
+                swap.setVar1(body.var1);
+                swap.setVar2(body.var2);
+                swap.setValue(body.getValue());
+                return swap;
+            case remove:
+                OP_ToggleScope toggleScope = new OP_ToggleScope();
+                toggleScope.setTarget(body.target);
+                return toggleScope;
+            case message:
+                OP_Message message = new OP_Message();
+                message.setMessage(body.message);
+                return message;
+            default:
+                throw new JsonParseException("Bad operation type: \"" + type + "\"");
+        }
+    }
+
+    private static OperationType toType (String name) {
+        try {
+            return OperationType.valueOf(name);
+        } catch (IllegalArgumentException exception) {
+            throw new JsonParseException("Bad operation type: \"" + name + "\"");
+        }
+    }
+
+    private void writeLocator (JsonWriter out, String name, Locator locator) throws IOException {
+        if (locator != null) {
+            out.name(name);
+            locatorAdapter.write(out, locator);
+        }
+    }
+
+    private static void writeDoubles (JsonWriter out, double[] value) throws IOException {
+        if (value != null) {
+            out.name(LogJson.VALUE).beginArray();
+            for (double d : value) {
+                out.value(d);
+            }
+            out.endArray();
+        }
+    }
+
+    /**
+     * Members of an operation body.
+     */
+    private static class Body {
+        Locator source;
+        Locator target;
+        Locator var1;
+        Locator var2;
+        double[] value;
+        String message;
+
+        /**
+         * Returns the value, falling back to a numeric message.
+         */
+        double[] getValue () {
+            if (value == null && message != null) {
+                try {
+                    return new double[]{Double.parseDouble(message)};
+                } catch (NumberFormatException exception) {
+                    return null;
+                }
+            }
+            return value;
+        }
+    }
+}
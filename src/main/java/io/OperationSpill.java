@@ -0,0 +1,122 @@
+package io;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import contract.wrapper.Operation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Stores operations which did not fit in a {@link RingBuffer} in a temporary file, one
+ * JSON object per line. The file is emptied every time it has been drained, so it only
+ * grows while the consumer is behind.
+ */
+public class OperationSpill implements RingBuffer.Spill<Operation>, Closeable {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final OperationAdapter adapter = new OperationAdapter();
+    private File file;
+    private FileChannel channel;
+    private Writer writer;
+    private volatile long size;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new OperationSpill, backed by a temporary file which is created on first
+     * use.
+     */
+    public OperationSpill () {
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public synchronized void write (Operation op) throws IOException {
+        if (writer == null) {
+            if (file == null) {
+                file = File.createTempFile("spill", ".jsonl");
+                file.deleteOnExit();
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                    StandardCharsets.UTF_8));
+        }
+        adapter.write(new JsonWriter(writer), op); // JsonWriter does not buffer.
+        writer.write('\n');
+        size++;
+    }
+
+    @Override
+    public synchronized int drainTo (Collection<Operation> target) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        writer.flush();
+
+        int count = 0;
+        channel.position(0);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                StandardCharsets.UTF_8));
+        for (String line; count < size && (line = reader.readLine()) != null; count++) {
+            target.add(adapter.read(new JsonReader(new StringReader(line))));
+        }
+
+        // Everything has been read - start over.
+        channel.truncate(0);
+        channel.position(0);
+        size = 0;
+        return count;
+    }
+
+    @Override
+    public long size () {
+        return size;
+    }
+
+    @Override
+    public synchronized void close () throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+        size = 0;
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io;
+
+import contract.wrapper.Operation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges the messages of several producers into a single stream, ordered by
+ * (timestamp, producer, sequence). Every producer has its own lock-free inbox, so
+ * producers never contend with each other. The consumer periodically
+ * {@link #drainTo(Collection, long) drains} the inboxes through a heap-based k-way merge.
+ * Draining is not thread safe; callers which drain from several threads must hold a lock.<br>
+ * <br>
+ * A message is released once no other producer can still deliver an earlier one. This
+ * happens when every other producer has a later message pending or has been seen past its
+ * timestamp. A message is also released once it has waited for the reorder window. A slow
+ * or silent producer can therefore delay the others by at most the window. Missing sequence
+ * numbers are waited for in the same way, and are then counted as gaps.
+ */
+public class OrderedMerge {
+
+    /**
+     * Default reorder window in nanoseconds.
+     */
+    public static final long DEFAULT_WINDOW = 50000000;
+
+    private static final Comparator<Message> ORDER = (a, b) -> {
+        int c = Long.compare(a.timestamp, b.timestamp);
+        if (c == 0) {
+            c = a.lane.producer.compareTo(b.lane.producer);
+        }
+        return c != 0 ? c : Long.compare(a.sequence, b.sequence);
+    };
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final long window;
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<String, Lane>();
+
+    /**
+     * Lanes ordered by their next message. Only used while draining.
+     */
+    private final PriorityQueue<Lane> heap = new PriorityQueue<Lane>(
+            (a, b) -> ORDER.compare(a.pending.peek(), b.pending.peek()));
+
+    private final AtomicLong queued = new AtomicLong();
+
+    /**
+     * Only written while draining, but read from any thread.
+     */
+    private volatile long gaps;
+    private volatile long late;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new OrderedMerge.
+     *
+     * @param window The reorder window in nanoseconds.
+     */
+    public OrderedMerge (long window) {
+        this.window = Math.max(0, window);
+    }
+
+    /**
+     * Create a new OrderedMerge using {@link #DEFAULT_WINDOW}.
+     */
+    public OrderedMerge () {
+        this(DEFAULT_WINDOW);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Add a message. May be called from any thread.
+     *
+     * @param producer The producer of the message.
+     * @param sequence The position of the message among the messages of its producer,
+     * starting from zero.
+     * @param timestamp The time the message was produced, in nanoseconds. All producers
+     * must use the same clock.
+     * @param operations The operations of the message.
+     */
+    public void submit (String producer, long sequence, long timestamp, List<Operation> operations) {
+        Lane lane = lanes.computeIfAbsent(producer, Lane::new);
+        lane.inbox.add(new Message(lane, sequence, timestamp, operations, System.nanoTime()));
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Forget a producer once its remaining messages have been released. The producer must
+     * not submit any more messages. Must not be called while draining.
+     *
+     * @param producer The producer which has finished.
+     */
+    public void finish (String producer) {
+        Lane lane = lanes.get(producer);
+        if (lane != null) {
+            lane.finished = true;
+            removeIfFinished(lane);
+        }
+    }
+
+    /**
+     * Move every message which can be released to {@code target}, in order. Must not be
+     * called by several threads at once.
+     *
+     * @param target The collection to add the operations to.
+     * @param now The current time, as given by {@link System#nanoTime()}.
+     * @return The number of operations added.
+     */
+    public int drainTo (Collection<Operation> target, long now) {
+        if (queued.get() == 0) {
+            return 0;
+        }
+
+        // Move new arrivals into the per-lane reorder queues.
+        heap.clear();
+        for (Lane lane : lanes.values()) {
+            Message message;
+            while ((message = lane.inbox.poll()) != null) {
+                if (message.sequence < lane.next) {
+                    late++; // Given up on earlier - deliver at once rather than lose it.
+                    queued.decrementAndGet();
+                    target.addAll(message.operations);
+                    continue;
+                }
+                lane.pending.add(message);
+                lane.seen = Math.max(lane.seen, message.timestamp);
+                lane.lastArrival = Math.max(lane.lastArrival, message.arrival);
+            }
+            if (lane.ready(now)) {
+                heap.add(lane);
+            } else {
+                removeIfFinished(lane);
+            }
+        }
+
+        int count = 0;
+        while (!heap.isEmpty()) {
+            Lane lane = heap.poll();
+            Message head = lane.pending.peek();
+            if (now - head.arrival < window && blocked(head, now)) {
+                break; // Every later message is blocked as well.
+            }
+
+            lane.pending.poll();
+            if (head.sequence > lane.next) {
+                gaps += head.sequence - lane.next;
+            }
+            lane.next = head.sequence + 1;
+            queued.decrementAndGet();
+            target.addAll(head.operations);
+            count += head.operations.size();
+
+            if (lane.ready(now)) {
+                heap.add(lane);
+            } else {
+                removeIfFinished(lane);
+            }
+        }
+        return count;
+    }
+
+    private void removeIfFinished (Lane lane) {
+        if (lane.finished && lane.pending.isEmpty() && lane.inbox.isEmpty()) {
+            lanes.remove(lane.producer, lane);
+        }
+    }
+
+    /**
+     * Returns {@code true} if a lane other than that of {@code head} may still deliver a
+     * message which should come first. Lanes which have been silent for longer than the
+     * window, or whose producer has finished, are not waited for.
+     */
+    private boolean blocked (Message head, long now) {
+        for (Lane lane : lanes.values()) {
+            if (lane == head.lane) {
+                continue;
+            }
+            Message next = lane.pending.peek();
+            if (next != null) {
+                if (next.sequence != lane.next) {
+                    return true; // Waiting for a missing message.
+                }
+                // In sequence, so not before head - or it would be first in the heap.
+            } else if (!lane.finished && lane.seen < head.timestamp
+                    && lane.lastArrival != Long.MIN_VALUE // Nothing moved yet.
+                    && now - lane.lastArrival < window) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the number of messages waiting to be released.
+     *
+     * @return The number of queued messages.
+     */
+    public long getQueued () {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of sequence numbers which never arrived within the window.
+     *
+     * @return The number of missing messages.
+     */
+    public long getGaps () {
+        return gaps;
+    }
+
+    /**
+     * Returns the number of messages which arrived after their position had been given up
+     * on. These are delivered at once, out of order.
+     *
+     * @return The number of late messages.
+     */
+    public long getLate () {
+        return late;
+    }
+
+    /**
+     * Returns the names of the producers seen so far.
+     *
+     * @return The names of the producers.
+     */
+    public List<String> getProducers () {
+        return new ArrayList<String>(lanes.keySet());
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The messages of a single producer.
+     */
+    private final class Lane {
+
+        private final String producer;
+
+        /**
+         * Filled by the producer.
+         */
+        private final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<Message>();
+
+        /**
+         * Messages moved from the inbox, ordered by sequence. Only used while draining.
+         */
+        private final PriorityQueue<Message> pending = new PriorityQueue<Message>(
+                (a, b) -> Long.compare(a.sequence, b.sequence));
+
+        /**
+         * The next expected sequence number, the latest timestamp seen and the arrival
+         * time of the latest message.
+         */
+        private long next;
+        private long seen = Long.MIN_VALUE;
+        private long lastArrival = Long.MIN_VALUE;
+
+        /**
+         * Set once the producer will not submit any more messages.
+         */
+        private boolean finished;
+
+        private Lane (String producer) {
+            this.producer = producer;
+        }
+
+        /**
+         * Returns {@code true} if the first pending message is next in sequence, or has
+         * waited for the missing ones long enough.
+         */
+        private boolean ready (long now) {
+            Message head = pending.peek();
+            return head != null && (head.sequence == next || now - head.arrival >= window);
+        }
+    }
+
+    /**
+     * A message from a producer.
+     */
+    private static final class Message {
+
+        private final Lane lane;
+        private final long sequence;
+        private final long timestamp;
+        private final List<Operation> operations;
+        private final long arrival;
+
+        private Message (Lane lane, long sequence, long timestamp, List<Operation> operations, long arrival) {
+            this.lane = lane;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.operations = operations;
+            this.arrival = arrival;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package io;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@link LogStreamReader} which parses the body on a {@link ForkJoinPool}. The file is
+ * memory mapped and scanned for the boundaries of the top-level objects in the body
+ * array. Consecutive objects are grouped into chunks of roughly
+ * {@link #DEFAULT_CHUNK_BYTES} bytes, which are parsed concurrently. The per-chunk
+ * results are delivered to the listener in file order.<br>
+ * <br>
+ * Falls back to sequential reading for compressed files, files which cannot be mapped
+ * as a single buffer, and pools with a parallelism of 1. The scan for object boundaries
+ * is done on a single thread before parsing, so a single worker is always slower than
+ * reading sequentially.
+ */
+public class ParallelLogReader extends LogStreamReader {
+
+    /**
+     * Default approximate size of a chunk in bytes.
+     */
+    public static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private static final byte[] ARRAY_OPEN = {'['};
+    private static final byte[] ARRAY_CLOSE = {']'};
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The pool used for parsing.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Approximate size of a chunk in bytes.
+     */
+    private final int chunkBytes;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new ParallelLogReader.
+     *
+     * @param file The file to read.
+     * @param pool The pool to parse on.
+     * @param chunkBytes The approximate size of a chunk in bytes.
+     */
+    public ParallelLogReader (File file, ForkJoinPool pool, int chunkBytes) {
+        super(file);
+        this.pool = pool;
+        this.chunkBytes = chunkBytes < 1 ? 1 : chunkBytes;
+    }
+
+    /**
+     * Create a new ParallelLogReader using the common pool.
+     *
+     * @param file The file to read.
+     */
+    public ParallelLogReader (File file) {
+        this(file, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public void read (ReadListener listener) throws IOException, InterruptedException {
+        File file = getFile();
+        if (isCompressed(file) || file.length() > Integer.MAX_VALUE || pool.getParallelism() < 2) {
+            super.read(listener);
+            return;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Layout layout = scan(buffer, chunkBytes);
+        if (layout.bodyStart < 0) {
+            super.read(listener); // Unusual layout - let the sequential reader deal with it.
+            return;
+        }
+
+        // Start parsing the body before reading the header. Only a limited number of chunks
+        // are parsed ahead of delivery, so that a slow listener bounds memory usage.
+        final int window = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<Operation[]>> tasks = new ArrayDeque<ForkJoinTask<Operation[]>>();
+        int next = 0;
+        for (; next < layout.chunks.size() && next < window; next++) {
+            tasks.add(submit(buffer, layout.chunks.get(next)));
+        }
+
+        try {
+            readHeader(buffer, layout, listener);
+
+            int total = 0;
+            while (!tasks.isEmpty()) {
+                if (isCancelled()) {
+                    return;
+                }
+                Operation[] operations = tasks.poll().get();
+                if (next < layout.chunks.size()) {
+                    tasks.add(submit(buffer, layout.chunks.get(next++)));
+                }
+                total += operations.length;
+                deliver(Arrays.asList(operations), listener);
+            }
+            listener.readFinished(total);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (ForkJoinTask<Operation[]> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private ForkJoinTask<Operation[]> submit (ByteBuffer buffer, int[] chunk) {
+        return pool.submit(new ChunkTask(slice(buffer, chunk[0], chunk[1])));
+    }
+
+    private void readHeader (ByteBuffer buffer, Layout layout, ReadListener listener) throws IOException {
+        if (layout.headerStart < 0) {
+            listener.headerRead(new HashMap<String, DataStructure>(), new HashMap<String, List<String>>());
+            return;
+        }
+        InputStream in = new ByteBufferInputStream(slice(buffer, layout.headerStart, layout.headerEnd));
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            readHeader(reader, new JsonParser(), listener);
+        }
+    }
+
+    /**
+     * Returns a view of {@code buffer} between {@code start} (inclusive) and {@code end}
+     * (exclusive).
+     */
+    private static ByteBuffer slice (ByteBuffer buffer, int start, int end) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.limit(end);
+        dup.position(start);
+        return dup.slice();
+    }
+
+    /**
+     * Scan a log for the header and the objects of the body, grouping the objects into
+     * chunks.
+     *
+     * @param buffer The log.
+     * @param chunkBytes The approximate size of a chunk.
+     * @return The layout of the log.
+     */
+    static Layout scan (ByteBuffer buffer, int chunkBytes) {
+        Layout layout = new Layout();
+
+        new LogScanner(new LogScanner.ScanListener() {
+
+            private int chunkStart = -1;
+            private int chunkEnd;
+            private int chunkOps;
+
+            @Override
+            public void headerFound (long start, long end) {
+                layout.headerStart = (int) start;
+                layout.headerEnd = (int) end;
+            }
+
+            @Override
+            public void bodyStart (long position) {
+                layout.bodyStart = (int) position;
+            }
+
+            @Override
+            public void operationFound (long start, long end) {
+                if (chunkStart < 0) {
+                    chunkStart = (int) start;
+                }
+                chunkEnd = (int) end;
+                chunkOps++;
+                if (chunkEnd - chunkStart >= chunkBytes) {
+                    flush();
+                }
+            }
+
+            @Override
+            public void bodyEnd (long position) {
+                layout.bodyEnd = (int) position + 1;
+                flush();
+            }
+
+            private void flush () {
+                if (chunkStart >= 0) {
+                    layout.chunks.add(new int[]{chunkStart, chunkEnd, chunkOps});
+                    chunkStart = -1;
+                    chunkOps = 0;
+                }
+            }
+        }).scan(buffer, 0);
+
+        return layout;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Positions of interest in a mapped log.
+     */
+    static final class Layout {
+        int headerStart = -1;
+        int headerEnd = -1;
+        int bodyStart = -1;
+        int bodyEnd = -1;
+        /**
+         * Chunks as {start, end, operation count}.
+         */
+        final List<int[]> chunks = new ArrayList<int[]>();
+    }
+
+    /**
+     * Parses the objects in a chunk, which is a comma-separated sequence of operations.
+     */
+    private class ChunkTask extends RecursiveTask<Operation[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer chunk;
+
+        private ChunkTask (ByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Operation[] compute () {
+            InputStream in = new SequenceInputStream(new ByteArrayInputStream(ARRAY_OPEN),
+                    new SequenceInputStream(new ByteBufferInputStream(chunk), new ByteArrayInputStream(ARRAY_CLOSE)));
+            List<Operation> operations = new ArrayList<Operation>();
+            try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                reader.beginArray();
+                while (reader.hasNext() && !ParallelLogReader.this.isCancelled()) {
+                    operations.add(readOperation(reader));
+                }
+            } catch (IOException exception) {
+                throw new com.google.gson.JsonIOException(exception);
+            }
+
+            return operations.toArray(new Operation[operations.size()]);
+        }
+    }
+
+    /**
+     * An InputStream reading from a ByteBuffer.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream (ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read () {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available () {
+            return buffer.remaining();
+        }
+    }
+}
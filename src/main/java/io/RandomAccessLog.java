@@ -0,0 +1,48 @@
+package io;
+
+import contract.datastructure.DataStructure;
+import contract.wrapper.Operation;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A log whose operations can be read by index, without reading the operations before
+ * them.
+ */
+public interface RandomAccessLog {
+
+    /**
+     * Returns the number of operations in the log.
+     *
+     * @return The number of operations in the log.
+     */
+    int size ();
+
+    /**
+     * Returns the annotated variables of the log. Every call creates new structures.
+     *
+     * @return The annotated variables of the log.
+     * @throws IOException If the log could not be read.
+     */
+    Map<String, DataStructure> getStructures () throws IOException;
+
+    /**
+     * Returns the sources of the log.
+     *
+     * @return The sources of the log.
+     * @throws IOException If the log could not be read.
+     */
+    Map<String, List<String>> getSources () throws IOException;
+
+    /**
+     * Read a range of operations.
+     *
+     * @param from The index of the first operation, inclusive.
+     * @param to The index of the last operation, exclusive.
+     * @return The operations in the range.
+     * @throws IOException If the log could not be read.
+     */
+    List<Operation> getOperations (int from, int to) throws IOException;
+}
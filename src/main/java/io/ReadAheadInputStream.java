@@ -0,0 +1,161 @@
+package io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An InputStream which reads its source on a background thread, a few chunks ahead of
+ * the consumer. Used to overlap decompression with parsing.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 1 << 18;
+    private static final int MAX_CHUNKS = 4;
+    private static final byte[] EOF = new byte[0];
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(MAX_CHUNKS);
+    private final Thread thread;
+
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private byte[] chunk = new byte[0];
+    private int pos;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new ReadAheadInputStream. Reading of {@code source} starts immediately.
+     *
+     * @param source The stream to read. Closed when this stream is closed.
+     * @param name Name of the background thread.
+     */
+    public ReadAheadInputStream (InputStream source, String name) {
+        this.source = source;
+        thread = new Thread(this::readSource, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    @Override
+    public int read () throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read (byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - pos);
+        System.arraycopy(chunk, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available () {
+        return chunk.length - pos;
+    }
+
+    @Override
+    public void close () throws IOException {
+        closed = true;
+        thread.interrupt();
+        source.close();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Make sure the current chunk has bytes remaining.
+     *
+     * @return {@code false} if the end of the source has been reached.
+     */
+    private boolean fill () throws IOException {
+        while (pos == chunk.length) {
+            if (chunk == EOF) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", exception);
+            }
+            pos = 0;
+            if (chunk == EOF && failure != null) {
+                throw failure;
+            }
+        }
+        return true;
+    }
+
+    private void readSource () {
+        try {
+            while (!closed) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int n = 0;
+                int read;
+                while (n < CHUNK_SIZE && (read = source.read(buffer, n, CHUNK_SIZE - n)) > 0) {
+                    n += read;
+                }
+                if (n == 0) {
+                    break;
+                }
+                chunks.put(n == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, n));
+                if (n < CHUNK_SIZE) {
+                    break;
+                }
+            }
+        } catch (IOException exception) {
+            failure = exception;
+        } catch (InterruptedException exception) {
+            return; // Closed.
+        }
+
+        try {
+            chunks.put(EOF);
+        } catch (InterruptedException exception) {
+            // Closed.
+        }
+    }
+}
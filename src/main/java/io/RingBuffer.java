@@ -0,0 +1,358 @@
+package io;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue for handing items from any number of producer threads to a
+ * single consumer, which drains everything that has accumulated at once. What happens when
+ * the buffer is full is decided by its {@link Overflow} policy. Items are always delivered
+ * in the order they were offered, including items which have been spilled to disk.<br>
+ * <br>
+ * Every slot carries a sequence number, so that producers only contend on a single
+ * counter and never on a lock.
+ *
+ * @param <T> The type of the items.
+ */
+public class RingBuffer<T> {
+
+    /**
+     * Time to wait between attempts when blocking, in nanoseconds.
+     */
+    private static final long PARK_NANOS = 50000;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * Position of the next item to offer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Position of the next item to poll.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Items spilled to disk, or {@code null}.
+     */
+    private final Spill<T> spill;
+
+    private volatile Overflow overflow;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new RingBuffer.
+     *
+     * @param capacity The minimum capacity. Rounded up to a power of two.
+     * @param overflow The initial overflow policy.
+     * @param spill Storage for items which do not fit when the policy is
+     * {@link Overflow#SPILL}. May be {@code null} if the policy is never {@code SPILL}.
+     */
+    public RingBuffer (int capacity, Overflow overflow, Spill<T> spill) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        items = new AtomicReferenceArray<T>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        this.spill = spill;
+        setOverflow(overflow);
+    }
+
+    /**
+     * Create a new RingBuffer without spill storage.
+     *
+     * @param capacity The minimum capacity. Rounded up to a power of two.
+     * @param overflow The initial overflow policy. Must not be {@link Overflow#SPILL}.
+     */
+    public RingBuffer (int capacity, Overflow overflow) {
+        this(capacity, overflow, null);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Add an item, applying the overflow policy if the buffer is full. May be called from
+     * any thread.
+     *
+     * @param item The item to add.
+     * @throws InterruptedException If interrupted while blocked.
+     * @throws IOException If the item could not be spilled.
+     */
+    public void put (T item) throws InterruptedException, IOException {
+        offered.incrementAndGet();
+
+        // Once anything has been spilled, new items go to the spill as well to keep order.
+        if (spill != null && spill.size() > 0 && overflow == Overflow.SPILL) {
+            spillItem(item);
+            return;
+        }
+
+        while (!offer(item)) {
+            switch (overflow) {
+                case DROP_OLDEST:
+                    if (poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                    break;
+                case SPILL:
+                    spillItem(item);
+                    return;
+                case BLOCK:
+                default:
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    LockSupport.parkNanos(PARK_NANOS);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Add an item if there is room.
+     *
+     * @param item The item to add.
+     * @return {@code true} if the item was added, {@code false} if the buffer is full.
+     */
+    public boolean offer (T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(slot, item);
+                    sequences.set(slot, position + 1); // Publish.
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // Full.
+            }
+            // Another producer took the slot - try again.
+        }
+    }
+
+    /**
+     * Remove the oldest item in the buffer, not counting spilled items.
+     *
+     * @return The oldest item, or {@code null} if the buffer is empty.
+     */
+    public T poll () {
+        while (true) {
+            long position = head.get();
+            int slot = (int) position & mask;
+            long diff = sequences.get(slot) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = items.getAndSet(slot, null);
+                    sequences.set(slot, position + mask + 1); // Free the slot for the next lap.
+                    return item;
+                }
+            } else if (diff < 0) {
+                return null; // Empty, or the item is not yet published.
+            }
+        }
+    }
+
+    /**
+     * Move every item which has accumulated, including spilled items, to {@code target}.
+     * Should only be called by the consumer.
+     *
+     * @param target The collection to add the items to.
+     * @return The number of items added.
+     * @throws IOException If spilled items could not be read.
+     */
+    public int drainTo (Collection<T> target) throws IOException {
+        int count = 0;
+        T item;
+        while ((item = poll()) != null) {
+            target.add(item);
+            count++;
+        }
+        if (spill != null && spill.size() > 0) {
+            count += spill.drainTo(target);
+        }
+        return count;
+    }
+
+    private void spillItem (T item) throws IOException {
+        if (spill == null) {
+            throw new IllegalStateException("No spill storage.");
+        }
+        spill.write(item);
+        spilled.incrementAndGet();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters and Setters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Set the overflow policy.
+     *
+     * @param overflow The new policy.
+     * @throws IllegalArgumentException If {@code overflow} is {@link Overflow#SPILL} and
+     * there is no spill storage.
+     */
+    public void setOverflow (Overflow overflow) {
+        if (overflow == Overflow.SPILL && spill == null) {
+            throw new IllegalArgumentException("No spill storage.");
+        }
+        this.overflow = overflow;
+    }
+
+    /**
+     * Returns the overflow policy.
+     *
+     * @return The overflow policy.
+     */
+    public Overflow getOverflow () {
+        return overflow;
+    }
+
+    /**
+     * Returns the capacity of the buffer in memory.
+     *
+     * @return The capacity of the buffer.
+     */
+    public int getCapacity () {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of items waiting for the consumer, including spilled items.
+     *
+     * @return The number of queued items.
+     */
+    public long getQueued () {
+        long inMemory = Math.max(0, tail.get() - head.get());
+        return inMemory + (spill == null ? 0 : spill.size());
+    }
+
+    /**
+     * Returns the total number of items offered.
+     *
+     * @return The total number of items offered.
+     */
+    public long getOffered () {
+        return offered.get();
+    }
+
+    /**
+     * Returns the total number of items dropped to make room for newer ones.
+     *
+     * @return The total number of dropped items.
+     */
+    public long getDropped () {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the total number of items spilled to disk.
+     *
+     * @return The total number of spilled items.
+     */
+    public long getSpilled () {
+        return spilled.get();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * What to do when an item is offered to a full buffer.
+     */
+    public enum Overflow {
+        /**
+         * Wait until the consumer has made room.
+         */
+        BLOCK,
+        /**
+         * Discard the oldest items in the buffer.
+         */
+        DROP_OLDEST,
+        /**
+         * Write the item to disk, to be read back by the consumer.
+         */
+        SPILL
+    }
+
+    /**
+     * Storage for items which did not fit in the buffer. Must be safe for concurrent use
+     * by the producers and the consumer.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Spill<T> {
+
+        /**
+         * Store an item.
+         *
+         * @param item The item to store.
+         * @throws IOException If the item could not be stored.
+         */
+        void write (T item) throws IOException;
+
+        /**
+         * Move all stored items to {@code target}, in the order they were written.
+         *
+         * @param target The collection to add the items to.
+         * @return The number of items added.
+         * @throws IOException If the items could not be read.
+         */
+        int drainTo (Collection<T> target) throws IOException;
+
+        /**
+         * Returns the number of stored items.
+         *
+         * @return The number of stored items.
+         */
+        long size ();
+    }
+}
@@ -0,0 +1,176 @@
+package io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The lines of a source file, kept as a single UTF-8 buffer with an index of line
+ * offsets. Lines are only decoded when asked for, and the buffer may be a slice of a
+ * memory-mapped binary trace.
+ */
+public final class SourceStore {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The lines, separated by '\n'.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The start of every line, followed by the end of the buffer plus one.
+     */
+    private final int[] lineStarts;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    private SourceStore (ByteBuffer buffer, int[] lineStarts) {
+        this.buffer = buffer;
+        this.lineStarts = lineStarts;
+    }
+
+    /**
+     * Create a store for a list of lines. If the list is a view returned by
+     * {@link #asList()}, its store is returned.
+     *
+     * @param lines The lines of a source file.
+     * @return A SourceStore holding {@code lines}.
+     */
+    public static SourceStore of (List<String> lines) {
+        if (lines instanceof Lines) {
+            return ((Lines) lines).getStore();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] lineStarts = new int[lines.size() + 1];
+        int i = 0;
+        for (String line : lines) {
+            lineStarts[i++] = out.size();
+            byte[] bytes = line == null ? new byte[0] : line.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+            out.write('\n');
+        }
+        lineStarts[i] = out.size();
+        return new SourceStore(ByteBuffer.wrap(out.toByteArray(), 0, Math.max(0, out.size() - 1)), lineStarts);
+    }
+
+    /**
+     * Create a store for UTF-8 encoded lines separated by '\n'.
+     *
+     * @param utf8 The lines. The remaining bytes of the buffer are used.
+     * @param lineCount The number of lines in the buffer.
+     * @return A SourceStore for the buffer.
+     */
+    public static SourceStore wrap (ByteBuffer utf8, int lineCount) {
+        ByteBuffer buffer = utf8.slice();
+        int[] lineStarts = new int[lineCount + 1];
+        int line = 1;
+        for (int i = 0; i < buffer.limit() && line < lineCount; i++) {
+            if (buffer.get(i) == '\n') {
+                lineStarts[line++] = i + 1;
+            }
+        }
+        Arrays.fill(lineStarts, line, lineStarts.length, buffer.limit() + 1);
+        if (lineCount == 0) {
+            lineStarts[0] = 0;
+        }
+        return new SourceStore(buffer, lineStarts);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the number of lines.
+     *
+     * @return The number of lines.
+     */
+    public int size () {
+        return lineStarts.length - 1;
+    }
+
+    /**
+     * Decode a line.
+     *
+     * @param index The index of the line.
+     * @return The line at {@code index}.
+     */
+    public String getLine (int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + size());
+        }
+        int start = lineStarts[index];
+        int length = lineStarts[index + 1] - 1 - start;
+        byte[] bytes = new byte[length];
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(start);
+        dup.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the lines as UTF-8, separated by '\n'.
+     *
+     * @return A read-only view of the bytes of this store.
+     */
+    public ByteBuffer getBytes () {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns an unmodifiable view of the lines, decoding lines as they are accessed.
+     *
+     * @return A list view of this store.
+     */
+    public List<String> asList () {
+        return new Lines(this);
+    }
+
+    /**
+     * A list view of a {@code SourceStore}.
+     */
+    private static final class Lines extends AbstractList<String> implements RandomAccess {
+
+        private final SourceStore store;
+
+        private Lines (SourceStore store) {
+            this.store = store;
+        }
+
+        private SourceStore getStore () {
+            return store;
+        }
+
+        @Override
+        public String get (int index) {
+            return store.getLine(index);
+        }
+
+        @Override
+        public int size () {
+            return store.size();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A directory of binary snapshots of previously parsed logs. Opening a cached log maps
+ * its snapshot instead of parsing the JSON again. Entries are keyed by a hash of the
+ * contents of the log together with its size and modification time, so a changed log is
+ * never served from the cache. The least recently used entries are removed when the
+ * total size of the cache exceeds its limit.
+ */
+public class TraceCache {
+
+    /**
+     * Default maximum total size of the cache in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * Smaller logs parse quickly enough, and are not cached.
+     */
+    public static final long MIN_LOG_SIZE = 1024 * 1024;
+
+    /**
+     * Number of bytes hashed at the start, middle and end of a log.
+     */
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final File directory;
+    private final long maxSize;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new TraceCache.
+     *
+     * @param directory The directory to keep snapshots in. Created if needed.
+     * @param maxSize The maximum total size of the cache in bytes.
+     */
+    public TraceCache (File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create a new TraceCache in the default location, {@code ~/.gui/cache}.
+     */
+    public TraceCache () {
+        this(new File(System.getProperty("user.home"), ".gui" + File.separator + "cache"), DEFAULT_MAX_SIZE);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the snapshot of a log, if there is an up-to-date one. Reads and hashes
+     * samples of the log, so should not be called on the JavaFX Application thread.
+     *
+     * @param log A log.
+     * @return A binary trace with the contents of {@code log}, or {@code null}.
+     */
+    public File lookup (File log) {
+        if (log.length() < MIN_LOG_SIZE || BinaryLog.isBinaryLog(log)) {
+            return null; // Never cached.
+        }
+        try {
+            File entry = getEntry(log);
+            if (!entry.isFile()) {
+                return null;
+            }
+            entry.setLastModified(System.currentTimeMillis()); // Most recently used.
+            return entry;
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a snapshot of a log by converting it on the current thread. Evicts old
+     * entries if the cache has grown too large.
+     *
+     * @param log A JSON log.
+     * @return The snapshot.
+     * @throws IOException If the log could not be read or the snapshot written.
+     */
+    public File store (File log) throws IOException {
+        File entry = getEntry(log);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory: " + directory);
+        }
+
+        File temp = new File(directory, entry.getName() + ".tmp");
+        try {
+            LogConverter.toBinary(log, temp);
+            Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+
+        evict();
+        return entry;
+    }
+
+    /**
+     * Create a snapshot of a log on a background thread, unless there already is one.
+     * Binary traces and logs smaller than {@link #MIN_LOG_SIZE} are ignored.
+     *
+     * @param log A JSON log.
+     */
+    public void storeAsync (File log) {
+        if (log.length() < MIN_LOG_SIZE) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            if (BinaryLog.isBinaryLog(log) || lookup(log) != null) {
+                return;
+            }
+            try {
+                store(log);
+            } catch (IOException | RuntimeException exception) {
+                // The cache is an optimization only.
+            }
+        }, "TraceCache: " + log.getName());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear () {
+        for (File entry : getEntries()) {
+            entry.delete();
+        }
+    }
+
+    /**
+     * Returns the cache directory.
+     *
+     * @return The cache directory.
+     */
+    public File getDirectory () {
+        return directory;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Remove the least recently used entries until the cache fits its maximum size.
+     */
+    private void evict () {
+        File[] entries = getEntries();
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        for (int i = 0; i < entries.length && total > maxSize; i++) {
+            long length = entries[i].length();
+            if (entries[i].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private File[] getEntries () {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(BinaryLog.EXTENSION));
+        return entries == null ? new File[0] : entries;
+    }
+
+    /**
+     * Returns the cache entry of a log, which may not exist.
+     */
+    private File getEntry (File log) throws IOException {
+        return new File(directory, key(log) + BinaryLog.EXTENSION);
+    }
+
+    /**
+     * Compute the key of a log from its size, modification time and samples of its
+     * contents. Snapshots written in an older format are never matched.
+     */
+    private static String key (File log) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+
+        long length = log.length();
+        digest.update((BinaryLog.VERSION + ":" + length + ":" + log.lastModified() + ":")
+                .getBytes(StandardCharsets.UTF_8));
+
+        try (RandomAccessFile in = new RandomAccessFile(log, "r")) {
+            byte[] sample = new byte[SAMPLE_SIZE];
+            long[] positions = {0, length / 2 - SAMPLE_SIZE / 2, length - SAMPLE_SIZE};
+            for (long position : positions) {
+                in.seek(Math.max(0, position));
+                int n = in.read(sample);
+                if (n > 0) {
+                    digest.update(sample, 0, n);
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
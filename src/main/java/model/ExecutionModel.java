@@ -271,6 +271,30 @@ public class ExecutionModel {
         return executedOperations;
     }
 
+    /**
+     * Execute forward up to and including the given index, without notifying the
+     * {@link OperationsExecutedListener OperationsExecutedListeners}. Unlike
+     * {@link #execute(int)}, the model is never reset, so the cost is proportional to the
+     * number of operations executed. Does nothing if {@code toIndex} is not ahead of the
+     * current index.
+     *
+     * @param toIndex The index to execute to.
+     * @return The number of operations executed.
+     */
+    public int fastForward (int toIndex) {
+        int targetIndex = Math.min(toIndex, currentExecutionList.size() - 1);
+        int count = 0;
+
+        while (index >= 0 && index < targetIndex) {
+            execute();
+            count++;
+        }
+
+        executedOperations.clear();
+        updateProperties();
+        return count;
+    }
+
     /**
      * Reset the model.
      */
@@ -286,6 +310,8 @@ public class ExecutionModel {
     public void clear () {
         dataStructures.clear();
         currentExecutionList.clear();
+        mixedOperations.clear();
+        atomicOperations.clear();
 
         index = -1;
         updateProperties();
@@ -490,6 +516,34 @@ public class ExecutionModel {
         }
     }
 
+    /**
+     * Append operations to this model, without resetting it. The current index and the
+     * state of the data structures are kept, so that the model may be stepped through
+     * while more operations are being appended.
+     *
+     * @param operations A list of operations to append.
+     */
+    public void appendOperations (List<Operation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return;
+        }
+
+        List<Operation> atomic = OpUtil.asAtomicList(operations);
+        atomicOperations.addAll(atomic);
+        mixedOperations.addAll(operations);
+
+        if (atomicExecution) {
+            currentExecutionList.addAll(atomic);
+        } else {
+            currentExecutionList.addAll(operations);
+        }
+
+        if (index < 0) {
+            index = 0; // First operations for the model.
+        }
+        updateProperties();
+    }
+
     /**
      * Returns the list of operations in use by this model as an unmodifiable instance.
      *
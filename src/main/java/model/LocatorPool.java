@@ -0,0 +1,175 @@
+package model;
+
+import contract.wrapper.Locator;
+import contract.wrapper.Operation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalises the locators of loaded operations. A trace typically touches a few
+ * hundred distinct cells, but every parsed operation carries its own {@link Locator}
+ * instances with their own identifier Strings and index arrays. The pool maps every
+ * locator to a shared instance with the same identifier and index, and every identifier
+ * and source name to a shared String, so that the memory used by the locators no longer
+ * grows with the length of the trace.<br>
+ * <br>
+ * Canonical locators are shared between operations and must not be modified. Instances
+ * are thread safe.
+ */
+public class LocatorPool {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Canonical Strings for identifiers and source names.
+     */
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Canonical locators, keyed by (identifier, index).
+     */
+    private final ConcurrentHashMap<Cell, Locator> locators = new ConcurrentHashMap<Cell, Locator>();
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Replace the locators and source names of the given operations with their canonical
+     * instances.
+     *
+     * @param operations The operations to intern.
+     */
+    public void intern (List<Operation> operations) {
+        for (Operation op : operations) {
+            intern(op);
+        }
+    }
+
+    /**
+     * Replace the locators and source name of an operation with their canonical instances.
+     *
+     * @param op The operation to intern.
+     */
+    public void intern (Operation op) {
+        if (op == null) {
+            return;
+        }
+        if (op.source != null) {
+            op.source = intern(op.source);
+        }
+        for (Map.Entry<?, Object> entry : op.operationBody.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Locator) {
+                entry.setValue(canonical((Locator) value));
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical instance of a locator.
+     *
+     * @param locator A locator.
+     * @return A locator with the same identifier and index, shared by all operations
+     * interned by this pool.
+     */
+    public Locator canonical (Locator locator) {
+        if (locator == null) {
+            return null;
+        }
+        Cell cell = new Cell(locator.identifier, locator.index);
+        Locator canonical = locators.get(cell);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        // First time this cell is seen - make it canonical with an interned identifier.
+        String identifier = locator.identifier == null ? null : intern(locator.identifier);
+        canonical = identifier == locator.identifier ? locator : new Locator(identifier, locator.index);
+        Locator previous = locators.putIfAbsent(cell, canonical);
+        return previous == null ? canonical : previous;
+    }
+
+    /**
+     * Returns the canonical instance of a String.
+     *
+     * @param string A String.
+     * @return An equal String, shared by all operations interned by this pool.
+     */
+    public String intern (String string) {
+        String previous = strings.putIfAbsent(string, string);
+        return previous == null ? string : previous;
+    }
+
+    /**
+     * Returns the number of distinct locators in the pool.
+     *
+     * @return The number of distinct locators in the pool.
+     */
+    public int size () {
+        return locators.size();
+    }
+
+    /**
+     * Remove all canonical instances. Operations interned earlier are not affected.
+     */
+    public void clear () {
+        strings.clear();
+        locators.clear();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * The key of a locator. The index is compared by content.
+     */
+    private static final class Cell {
+
+        private final String identifier;
+        private final int[] index;
+        private final int hash;
+
+        private Cell (String identifier, int[] index) {
+            this.identifier = identifier;
+            this.index = index;
+            hash = 31 * (identifier == null ? 0 : identifier.hashCode()) + Arrays.hashCode(index);
+        }
+
+        @Override
+        public boolean equals (Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Cell)) {
+                return false;
+            }
+            Cell other = (Cell) obj;
+            return hash == other.hash && (identifier == null ? other.identifier == null : identifier.equals(other.identifier))
+                    && Arrays.equals(index, other.index);
+        }
+
+        @Override
+        public int hashCode () {
+            return hash;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import gui.dialog.IdentifierCollisionDialog;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -78,6 +79,17 @@ public class ModelLoader {
      */
     private Set<String> operationStructNames;
 
+    /**
+     * Canonical locators and identifiers of the operations loaded into the live model.
+     */
+    private final LocatorPool locatorPool = new LocatorPool();
+
+    /**
+     * Undeclared identifiers the user has chosen not to create, so that streamed
+     * operations do not prompt again for them.
+     */
+    private final Set<String> declinedNames = new HashSet<String>();
+
     // ============================================================= //
     /*
      *
@@ -130,19 +142,13 @@ public class ModelLoader {
         /*
          * Handle structure name collision.
          */
-        boolean nameCollision = checkNameCollision(newStructs.keySet(), liveModel.getDataStructures().keySet());
-
-        if (nameCollision) {
-            IdentifierCollisionDialog icd = new IdentifierCollisionDialog(null);
-
-            short collisionRoutine = icd.show(liveModel.getDataStructures().values(), newStructs.values());
-            boolean abortImport = handleNameCollisionRespone(collisionRoutine);
-
-            if (abortImport) {
-                return false;
-            }
+        if (!resolveNameCollision(newStructs)) {
+            return false;
         }
 
+        // Only the incoming operations - the usage test appends those of the live model.
+        locatorPool.intern(newOps);
+
         /*
          * Handle used undeclared structures and unused structures.
          */
@@ -163,6 +169,140 @@ public class ModelLoader {
         return true;
     }
 
+    /**
+     * Handle collisions between the identifiers of new structures and those of the live
+     * model. The user is asked whether to clear the live model or reject the new
+     * structures, unless an earlier answer was remembered.
+     *
+     * @param newStructs The new data structures.
+     * @return {@code false} if the new structures were rejected. True if there was no
+     * collision, or if the live model has been cleared.
+     */
+    public boolean resolveNameCollision (Map<String, DataStructure> newStructs) {
+        boolean nameCollision = checkNameCollision(newStructs.keySet(), liveModel.getDataStructures().keySet());
+
+        if (nameCollision) {
+            IdentifierCollisionDialog icd = new IdentifierCollisionDialog(null);
+
+            short collisionRoutine = icd.show(liveModel.getDataStructures().values(), newStructs.values());
+            boolean abortImport = handleNameCollisionRespone(collisionRoutine);
+
+            if (abortImport) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Attempt to insert structures into a live model, without any operations. Name
+     * collisions are handled as in {@link #insertIntoLiveModel(Map, List)}, but no usage
+     * test is run since the operations are not yet known. Operations for the structures
+     * may be added later using {@link #appendOperations(List)}.
+     *
+     * @param newStructs The new data structures to insert.
+     * @return {@code false} if the import was aborted. True otherwise.
+     */
+    public boolean insertStructuresIntoLiveModel (Map<String, DataStructure> newStructs) {
+        if (!resolveNameCollision(newStructs)) {
+            return false;
+        }
+
+        Map<String, DataStructure> newLiveModelStructures = new HashMap<String, DataStructure>();
+        newLiveModelStructures.putAll(liveModel.getDataStructures());
+        newLiveModelStructures.putAll(newStructs);
+
+        liveModel.setDataStructures(newLiveModelStructures);
+        liveModel.reset();
+        return true;
+    }
+
+    /**
+     * Append operations to the live model without resetting it. Structures used by the
+     * operations but never declared are handled as in
+     * {@link #insertIntoLiveModel(Map, List)}, which may prompt the user. Operations on
+     * structures which remain undeclared are dropped. The locators of the operations are
+     * interned first.
+     *
+     * @param newOps The operations to append.
+     * @return {@code true} if structures were added to the live model.
+     * @see ExecutionModel#appendOperations(List)
+     */
+    public boolean appendOperations (List<Operation> newOps) {
+        return appendOperations(newOps, Collections.<String>emptySet());
+    }
+
+    /**
+     * Append operations to the live model without resetting it, as
+     * {@link #appendOperations(List)}. Operations on the given structures are dropped as
+     * well, for example if the user has rejected them.
+     *
+     * @param newOps The operations to append.
+     * @param rejected Identifiers whose operations should be dropped.
+     * @return {@code true} if structures were added to the live model.
+     */
+    public boolean appendOperations (List<Operation> newOps, Set<String> rejected) {
+        Map<String, DataStructure> structs = liveModel.getDataStructures();
+        int structCount = structs.size();
+
+        gatherUsedOperationNames(newOps, structs);
+        operationStructNames.removeAll(rejected);
+        operationStructNames.removeAll(declinedNames);
+        if (!operationStructNames.isEmpty()) {
+            structs.putAll(handleUndeclaredNames(Collections.<String>emptySet()));
+            for (String identifier : operationStructNames) {
+                if (!structs.containsKey(identifier)) {
+                    declinedNames.add(identifier);
+                }
+            }
+        }
+
+        List<Operation> accepted = newOps;
+        if (!rejected.isEmpty() || hasUndeclaredNames(newOps)) {
+            accepted = new ArrayList<Operation>(newOps.size());
+            for (Operation op : newOps) {
+                if (isDeclared(op, structs, rejected)) {
+                    accepted.add(op);
+                }
+            }
+            if (accepted.size() < newOps.size()) {
+                Main.console.force("Ignored " + (newOps.size() - accepted.size())
+                        + " operations on undeclared or rejected structures.");
+            }
+        }
+
+        locatorPool.intern(accepted);
+        liveModel.appendOperations(accepted);
+        return structs.size() != structCount;
+    }
+
+    /**
+     * Returns {@code true} if any of the operations use a structure which is not in the
+     * live model. Appending such operations using {@link #appendOperations(List)} may
+     * prompt the user.
+     *
+     * @param ops The operations to check.
+     * @return {@code true} if there are operations on undeclared structures.
+     */
+    public boolean hasUndeclaredNames (List<Operation> ops) {
+        Map<String, DataStructure> structs = liveModel.getDataStructures();
+        for (Operation op : ops) {
+            if (!isDeclared(op, structs, Collections.<String>emptySet())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forget everything learnt from the current live model. Should be called when the
+     * live model is cleared.
+     */
+    public void clear () {
+        locatorPool.clear();
+        declinedNames.clear();
+    }
+
     /**
      * Strip all unused variables from a model, without user prompt.
      *
@@ -234,6 +374,30 @@ public class ModelLoader {
         return createdStructures;
     }
 
+    /**
+     * Returns {@code true} if every structure used by an operation is in {@code structs}
+     * and not in {@code rejected}.
+     */
+    private static boolean isDeclared (Operation op, Map<String, DataStructure> structs, Set<String> rejected) {
+        switch (op.operation) {
+            case read:
+            case write:
+                return isDeclared(OpUtil.getLocator(op, Key.source), structs, rejected)
+                        && isDeclared(OpUtil.getLocator(op, Key.target), structs, rejected);
+            case swap:
+                return isDeclared(OpUtil.getLocator(op, Key.var1), structs, rejected)
+                        && isDeclared(OpUtil.getLocator(op, Key.var2), structs, rejected);
+            case remove:
+                return isDeclared(OpUtil.getLocator(op, Key.target), structs, rejected);
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isDeclared (Locator locator, Map<String, DataStructure> structs, Set<String> rejected) {
+        return locator == null || structs.containsKey(locator.identifier) && !rejected.contains(locator.identifier);
+    }
+
     private void autoCreateOrphan (String identifier) {
         IndependentElement newStruct = new IndependentElement(identifier, null, null, null);
         liveModel.getDataStructures().put(newStruct.identifier, newStruct);
@@ -276,7 +440,7 @@ public class ModelLoader {
                         }
                     }
 
-                    Locator var2 = OpUtil.getLocator(op, Key.target);
+                    Locator var2 = OpUtil.getLocator(op, Key.var2);
                     if (var2 != null) {
                         DataStructure var2Struct = structs.get(var2.identifier);
                         if (var2Struct == null) {
@@ -293,6 +457,7 @@ public class ModelLoader {
 
         if (alwaysClearOld) {
             liveModel.clear();
+            clear();
             return false;
         } else if (alwaysKeepOld) {
             return true;
@@ -304,6 +469,7 @@ public class ModelLoader {
                 alwaysClearOld = true;
             case IdentifierCollisionDialog.CLEAR_OLD:
                 liveModel.clear();
+                clear();
                 abortImport = false;
                 break;
 
@@ -389,6 +555,15 @@ public class ModelLoader {
      */
     // ============================================================= //
 
+    /**
+     * Returns the pool used to intern the locators of loaded operations.
+     *
+     * @return A LocatorPool.
+     */
+    public LocatorPool getLocatorPool () {
+        return locatorPool;
+    }
+
     /**
      * If {@code true}, unused structures will be removed automatically.
      *
@@ -17,6 +17,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.geometry.Point3D;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToolBar;
@@ -25,19 +27,25 @@ import javafx.scene.layout.Pane;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
 import javafx.util.Duration;
 import render.ARenderAnimation.Effect;
 import render.assets.Const;
 import render.element.AVElement;
+import render.element.AVElementPool;
 import render.element.ElementShape;
+import render.element.VisualMap;
 
 import java.io.IOException;
 import java.net.URL;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Base class for renders.
@@ -46,6 +54,19 @@ import java.util.List;
  */
 public abstract class ARender extends Pane implements MinMaxListener {
 
+    /**
+     * Size on screen, in pixels, below which elements are drawn without labels and stroke.
+     */
+    public static final double DETAIL_SHAPE_SIZE = 16;
+    /**
+     * Size on screen, in pixels, below which elements are drawn as blocks on a canvas.
+     */
+    public static final double DETAIL_BLOCK_SIZE = 6;
+    /**
+     * Maximum width and height of the block canvas, in pixels.
+     */
+    private static final double MAX_BLOCK_CANVAS = 4096;
+
     // ============================================================= //
     /*
      *
@@ -86,11 +107,15 @@ public abstract class ARender extends Pane implements MinMaxListener {
     protected double renderHeight;
 
     /**
-     * A mapping of actual Elements to VisualElements.
+     * A mapping of element indices to the nodes drawing them.
      */
-    // protected final HashMap<Element, VisualElement> visualMap =
-    // new HashMap<Element, VisualElement>();
-    protected final HashMap<String, AVElement> visualMap = new HashMap<String, AVElement>();
+    protected final VisualMap visualMap = new VisualMap();
+
+    /**
+     * Element nodes released by {@link #repaintAll()}, reused by
+     * {@link #obtainVisualElement(Element)}.
+     */
+    protected final AVElementPool elementPool = new AVElementPool();
 
     /**
      * If true, node sizes will be set relative to their value to the values of the other
@@ -103,6 +128,39 @@ public abstract class ARender extends Pane implements MinMaxListener {
      */
     private double factor;
 
+    /**
+     * Elements touched by operations since the last call to {@link #render()}.
+     */
+    private final List<Element> dirty = new ArrayList<Element>();
+    /**
+     * If true, the next call to {@link #render()} updates every element.
+     */
+    private boolean dirtyAll = true;
+    /**
+     * If true, the last call to {@link #render()} drew elements in the colours of their
+     * operations, which must be reset by the next call.
+     */
+    private boolean drawnPending;
+    /**
+     * Elements drawn by the last call to {@link #render()}, to be drawn again by the next.
+     */
+    private final List<Element> drawn = new ArrayList<Element>();
+
+    /**
+     * The current level of detail.
+     */
+    private Detail detail = Detail.FULL;
+    /**
+     * Draws the elements in {@link Detail#BLOCKS}, at {@link #blockScale} pixels per unit.
+     */
+    private final Canvas blockCanvas = new Canvas();
+    private double blockScale;
+    /**
+     * Set by {@link #refreshDetail()} once there are elements to draw, cleared by
+     * {@link #reset()}.
+     */
+    private boolean detailReady;
+
     // ============================================================= //
     /*
      *
@@ -116,6 +174,11 @@ public abstract class ARender extends Pane implements MinMaxListener {
      * automatically.
      */
     protected final Pane defaultNodePane = new Pane();
+    /**
+     * Pane for the canvas used in {@link Detail#BLOCKS}. Added to {@link #contentPane}
+     * automatically.
+     */
+    private final Pane blockPane = new Pane();
     /**
      * The content pane for the render. By default, a Pane for nodes (
      * {@link #defaultNodePane}) will be added, but renders can add their own panes to
@@ -194,6 +257,9 @@ public abstract class ARender extends Pane implements MinMaxListener {
         loadFXML();
         initDragAndZoom();
         bindAnimPane();
+        defaultNodePane.localToSceneTransformProperty().addListener((observable, oldValue, newValue) -> {
+            updateDetail(false);
+        });
 
         setRelativeNodeSize(Const.DEFAULT_RELATIVE_NODE_FACTOR);
 
@@ -220,6 +286,9 @@ public abstract class ARender extends Pane implements MinMaxListener {
         // Content pane
         contentPane = (Pane) fxmlLoader.getNamespace().get("content");
         contentPane.getChildren().add(defaultNodePane);
+        blockPane.setMouseTransparent(true);
+        blockPane.setVisible(false);
+        contentPane.getChildren().add(blockPane);
         reset();
 
         // Name labels
@@ -275,6 +344,10 @@ public abstract class ARender extends Pane implements MinMaxListener {
                 ((Pane) node).getChildren().clear();
             }
         }
+        elementPool.clear();
+        visualMap.clear();
+        markAllDirty();
+        detailReady = false;
     }
 
     // Make header visible only on mousever.
@@ -320,7 +393,10 @@ public abstract class ARender extends Pane implements MinMaxListener {
 
         ft.setOnFinished(event -> {
             int[] i = ((IndexedElement) tar).getIndex();
-            AVElement orig = visualMap.get(Arrays.toString(i));
+            AVElement orig = visualMap.get(i);
+            if (orig == null) {
+                return; // Scrolled out of view and released while animating.
+            }
 
             orig.setRotationAxis(new Point3D(0, 1, 0));
 
@@ -439,22 +515,89 @@ public abstract class ARender extends Pane implements MinMaxListener {
     // ============================================================= //
 
     /**
-     * Order the Render to draw the elements of the Data Structure it carries. <br>
+     * Order the Render to draw the elements of the Data Structure it carries. Only
+     * elements marked using {@link #markDirty(Element)} are updated, unless
+     * {@link #markAllDirty()} has been called. A render with nothing marked does no work,
+     * other than resetting the colours drawn by the previous call.<br>
      * <br>
      * The default implementation of this method calls:<br>
-     * {@link DataStructure#elementsDrawn(javafx.scene.paint.Paint)} <br>
-     * {@link #setRelativeNodeSizes()}.
+     * {@link DataStructure#elementsDrawn(javafx.scene.paint.Paint)} if every element is
+     * updated, or resets the colours of the elements drawn by the previous call<br>
+     * {@link #setRelativeNodeSizes()}, or the relative size of each marked element.
      */
     public void render () {
-        struct.elementsDrawn(Color.WHITE);
-        setRelativeNodeSizes();
+        if (!dirtyAll && dirty.isEmpty() && !drawnPending) {
+            return; // Untouched since the last render.
+        }
+
+        if (dirtyAll) {
+            struct.elementsDrawn(Color.WHITE);
+        } else {
+            resetDrawnColors();
+        }
+        if (dirtyAll) {
+            setRelativeNodeSizes();
+        } else if (relativeNodeSize) {
+            for (Element e : dirty) {
+                AVElement ave = visualMap.get(e);
+                if (ave != null) {
+                    setRelativeNodeSize(ave);
+                }
+            }
+        }
+        if (detail == Detail.BLOCKS) {
+            drawBlocks(dirtyAll);
+        }
+
+        drawnPending = dirtyAll || !dirty.isEmpty();
+        dirtyAll = false;
+        drawn.clear();
+        drawn.addAll(dirty);
+        dirty.clear();
+    }
+
+    /**
+     * Reset the colours of the elements drawn by the last call to {@link #render()}, unless
+     * they have been touched again since. Unlike
+     * {@link DataStructure#elementsDrawn(javafx.scene.paint.Paint)}, which visits every
+     * element of the structure, only the elements of the last call are visited.
+     */
+    private void resetDrawnColors () {
+        if (drawn.isEmpty()) {
+            return;
+        }
+        Set<Element> touched = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+        touched.addAll(dirty);
+        for (Element e : drawn) {
+            if (!touched.contains(e)) {
+                e.fillProperty.set(Color.WHITE);
+            }
+        }
+    }
+
+    /**
+     * Mark an element as touched by an operation, to be updated by the next call to
+     * {@link #render()}.
+     *
+     * @param e The touched element.
+     */
+    public void markDirty (Element e) {
+        dirty.add(e);
+    }
+
+    /**
+     * Make the next call to {@link #render()} update every element.
+     */
+    public void markAllDirty () {
+        dirtyAll = true;
     }
 
     /**
      * Force the Render to initialise all elements. This method will attempt create
      * elements and add them to the standard pane. It will clear the children of all
-     * children in {@link #contentPane} before beginning. {@link #bellsAndWhistles} will
-     * be called on every element.
+     * children in {@link #contentPane} before beginning. Element nodes which are cleared
+     * are reused rather than created again. {@link #bellsAndWhistles} will be called on
+     * every element.
      *
      * @return True if there was anything to draw.
      */
@@ -462,34 +605,80 @@ public abstract class ARender extends Pane implements MinMaxListener {
         if (struct.getElements().isEmpty() || contentPane == null) {
             return false; // Nothing to draw/contentPane not yet loaded.
         }
-        struct.setRepaintAll(false);
-
-        // Clear the nodes from all content Panes.
-        for (Node n : contentPane.getChildren()) {
-            ((Pane) n).getChildren().clear();
-        }
-
-        visualMap.clear();
-        contentPane.setBackground(null);
-        calculateSize();
+        clearForRepaint();
 
         // Create nodes
         AVElement newVis;
 
         for (Element e : struct.getElements()) {
-            newVis = this.createVisualElement(e);
+            newVis = obtainVisualElement(e);
             newVis.setLayoutX(getX(e));
             newVis.setLayoutY(getY(e));
 
             defaultNodePane.getChildren().add(newVis);
-            visualMap.put(Arrays.toString(((IndexedElement) e).getIndex()), newVis);
+            visualMap.put(((IndexedElement) e).getIndex(), newVis);
 
             bellsAndWhistles(e, newVis);
         }
 
+        refreshDetail();
         return true;
     }
 
+    /**
+     * Clear the nodes from all children of {@link #contentPane}, keeping the elements in
+     * {@link #elementPool} for reuse, and recalculate the size of the render. Called by
+     * {@link #repaintAll()} before creating nodes.
+     */
+    protected void clearForRepaint () {
+        struct.setRepaintAll(false);
+
+        for (Node n : contentPane.getChildren()) {
+            elementPool.release(((Pane) n).getChildren());
+            ((Pane) n).getChildren().clear();
+        }
+
+        visualMap.clear();
+        markAllDirty();
+        if (struct instanceof Array) {
+            visualMap.reserve(((Array) struct).getSize());
+        }
+        contentPane.setBackground(null);
+        calculateSize();
+    }
+
+    /**
+     * Returns a node for the element, reusing one from {@link #elementPool} if possible and
+     * calling {@link #createVisualElement(Element)} otherwise.
+     *
+     * @param e The element to bind.
+     * @return A bound VisualElement.
+     */
+    protected AVElement obtainVisualElement (Element e) {
+        AVElement ve = elementPool.acquire(elementStyle, e, nodeWidth, nodeHeight);
+        if (ve == null) {
+            ve = createVisualElement(e);
+        } else {
+            reuseVisualElement(e, ve);
+        }
+        ve.setDetailed(detail == Detail.FULL);
+        return ve;
+    }
+
+    /**
+     * Prepare a node taken from {@link #elementPool} for a new element, in the same way
+     * as {@link #createVisualElement(Element)} prepares a new node. The default
+     * implementation shows the index of the element if the node has a visible info label.
+     *
+     * @param e The element the node has been bound to.
+     * @param ve The reused node.
+     */
+    protected void reuseVisualElement (Element e, AVElement ve) {
+        if (ve.getInfoPos() != null && e instanceof IndexedElement) {
+            ve.setInfoArray(((IndexedElement) e).getIndex());
+        }
+    }
+
     /**
      * Print statistics for the structure this render carries.
      */
@@ -651,7 +840,7 @@ public abstract class ARender extends Pane implements MinMaxListener {
      *
      * @return The visual map for this Render.
      */
-    public HashMap<String, AVElement> getVisualMap () {
+    public VisualMap getVisualMap () {
         return visualMap;
     }
 
@@ -668,6 +857,7 @@ public abstract class ARender extends Pane implements MinMaxListener {
     public void setElementStyle (ElementShape newStyle) {
         if (newStyle != elementStyle) {
             elementStyle = newStyle;
+            elementPool.clear(); // Nodes of the old style cannot be reused.
             repaintAll();
         }
     }
@@ -776,6 +966,146 @@ public abstract class ARender extends Pane implements MinMaxListener {
         return repaintAll();
     }
 
+    // ============================================================= //
+    /*
+     *
+     * Level of detail
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Apply the level of detail to every node and redraw the blocks if they are shown.
+     * Should be called by {@link #repaintAll()} once the nodes have been created.
+     */
+    protected void refreshDetail () {
+        detailReady = true;
+        updateDetail(true);
+    }
+
+    /**
+     * Returns {@code true} if this render can draw its elements as blocks at
+     * {@link #getX(Element)}, {@link #getY(Element)}. The default implementation returns
+     * {@code true}.
+     *
+     * @return {@code true} if {@link Detail#BLOCKS} may be used.
+     */
+    protected boolean supportsBlocks () {
+        return true;
+    }
+
+    /**
+     * Choose the level of detail from the size of the elements on screen. Nodes are only
+     * updated when the level changes, unless {@code force} is set. Switching level never
+     * repaints the render.
+     */
+    private void updateDetail (boolean force) {
+        if (!detailReady) {
+            return; // Not yet painted.
+        }
+        Transform t = defaultNodePane.getLocalToSceneTransform();
+        double scale = Math.hypot(t.getMxx(), t.getMyx());
+        double size = Math.min(nodeWidth, nodeHeight) * scale;
+
+        Detail newDetail;
+        if (size >= DETAIL_SHAPE_SIZE) {
+            newDetail = Detail.FULL;
+        } else if (size >= DETAIL_BLOCK_SIZE || !supportsBlocks()) {
+            newDetail = Detail.SHAPE;
+        } else {
+            newDetail = Detail.BLOCKS;
+        }
+
+        boolean full = newDetail == Detail.FULL;
+        if (force || full != (detail == Detail.FULL)) {
+            for (Node n : defaultNodePane.getChildren()) {
+                if (n instanceof AVElement) {
+                    ((AVElement) n).setDetailed(full);
+                }
+            }
+        }
+
+        boolean blocks = newDetail == Detail.BLOCKS;
+        boolean redraw = blocks && (force || detail != Detail.BLOCKS || blockScale != blockScale(scale));
+        Detail oldDetail = detail;
+        detail = newDetail;
+        defaultNodePane.setVisible(!blocks);
+        blockPane.setVisible(blocks);
+        if (redraw) {
+            blockScale = blockScale(scale);
+            drawBlocks(true);
+        } else if (!blocks && blockCanvas.getWidth() > 0) {
+            // Release the texture.
+            blockCanvas.setWidth(0);
+            blockCanvas.setHeight(0);
+        }
+        if (oldDetail != newDetail) {
+            detailChanged(oldDetail);
+        }
+    }
+
+    /**
+     * Called when the level of detail has changed, after the nodes and blocks have been
+     * updated. The default implementation does nothing.
+     *
+     * @param oldDetail The previous level of detail.
+     */
+    protected void detailChanged (Detail oldDetail) {
+    }
+
+    /**
+     * Returns the resolution of the block canvas for a scale, limited by
+     * {@link #MAX_BLOCK_CANVAS}.
+     */
+    private double blockScale (double scale) {
+        double extent = Math.max(1, Math.max(renderWidth, renderHeight));
+        return Math.min(scale, MAX_BLOCK_CANVAS / extent);
+    }
+
+    /**
+     * Draw elements as blocks of at least one pixel on the block canvas, so that adjacent
+     * elements merge into strips. Draws all elements if {@code all} is set, and otherwise
+     * only the elements touched by this and the previous call to {@link #render()}.
+     */
+    private void drawBlocks (boolean all) {
+        GraphicsContext gc = blockCanvas.getGraphicsContext2D();
+        if (all) {
+            if (blockCanvas.getParent() == null) {
+                blockPane.getChildren().add(blockCanvas); // Cleared by repaintAll().
+            }
+            blockCanvas.setWidth(Math.ceil(renderWidth * blockScale));
+            blockCanvas.setHeight(Math.ceil(renderHeight * blockScale));
+            blockCanvas.getTransforms().setAll(new Scale(1 / blockScale, 1 / blockScale, 0, 0));
+            gc.clearRect(0, 0, blockCanvas.getWidth(), blockCanvas.getHeight());
+            for (Element e : struct.getElements()) {
+                drawBlock(gc, e);
+            }
+        } else {
+            for (Element e : drawn) {
+                drawBlock(gc, e);
+            }
+            for (Element e : dirty) {
+                drawBlock(gc, e);
+            }
+        }
+    }
+
+    private void drawBlock (GraphicsContext gc, Element e) {
+        Paint fill = e.fillProperty.getValue();
+        gc.setFill(fill == null ? Color.WHITE : fill);
+        gc.fillRect(Math.floor(getX(e) * blockScale), Math.floor(getY(e) * blockScale),
+                Math.max(1, Math.ceil(nodeWidth * blockScale)), Math.max(1, Math.ceil(nodeHeight * blockScale)));
+    }
+
+    /**
+     * Returns the current level of detail.
+     *
+     * @return The current level of detail.
+     */
+    public Detail getDetail () {
+        return detail;
+    }
+
     // ============================================================= //
     /*
      *
@@ -954,4 +1284,31 @@ public abstract class ARender extends Pane implements MinMaxListener {
     public void minChanged (double newMin) {
         setRelativeNodeSizes();
     }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Levels of detail, chosen from the size of the elements on screen.
+     */
+    public enum Detail {
+        /**
+         * Nodes with labels, stroke and mouse events.
+         */
+        FULL,
+        /**
+         * Nodes with only their filled shape.
+         */
+        SHAPE,
+        /**
+         * No nodes. Elements are drawn as blocks of at least one pixel on a canvas, where
+         * adjacent elements merge.
+         */
+        BLOCKS
+    }
 }
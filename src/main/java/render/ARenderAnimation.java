@@ -14,7 +14,6 @@ import javafx.collections.ObservableList;
 import javafx.util.Duration;
 import render.element.AVElement;
 
-import java.util.Arrays;
 
 /**
  * Utility class for animating operations. Cannot be instantiated.
@@ -49,8 +48,7 @@ public abstract class ARenderAnimation {
         // Fetch the element to animate
         // VisualElement orig = visualElementsMapping.get(e);
         int[] i = ((IndexedElement) e).getIndex();
-        Arrays.copyOf(i, i.length);
-        final AVElement orig = render.visualMap.get(Arrays.toString(i));
+        final AVElement orig = render.visualMap.get(i);
         if (Debug.ERR) {
             if (orig == null) {
                 System.err.println(
@@ -97,8 +95,7 @@ public abstract class ARenderAnimation {
         // Fetch the element to animate
         // VisualElement orig = visualElementsMapping.get(e);
         int[] i = ((IndexedElement) e).getIndex();
-        Arrays.copyOf(i, i.length);
-        final AVElement orig = render.visualMap.get(Arrays.toString(i));
+        final AVElement orig = render.visualMap.get(i);
         if (Debug.ERR) {
             if (orig == null) {
                 System.err.println("ARenderAnimation.stationary() failure: Could not resolve element  " + e
@@ -0,0 +1,549 @@
+package render;
+
+import contract.datastructure.Element;
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import render.element.AVElement;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Immediate mode bar chart used by {@link BarchartRender} for large arrays. Bars, axes and
+ * labels are drawn on a single canvas instead of creating nodes for every element.<br>
+ * <br>
+ * Every element is observed for changes to its value and colour. Changed bars are only
+ * marked as dirty, and {@link #flush()} redraws the pixel columns they cover. When there
+ * are more bars than pixel columns, every column shows the largest of its bars.
+ * Operations are shown as fading highlights rather than moving nodes.
+ */
+class BarchartCanvas extends Canvas {
+
+    /**
+     * Height of the strip above the plot holding the caption and hover text.
+     */
+    private static final double CAPTION_HEIGHT = 18;
+
+    /**
+     * Bars narrower than this are drawn without an outline.
+     */
+    private static final double OUTLINE_MIN_WIDTH = 4;
+
+    /**
+     * Minimum distance between axis labels, in pixels.
+     */
+    private static final double VALUE_LABEL_SPACING = 25;
+    private static final double INDEX_LABEL_SPACING = 60;
+
+    /**
+     * Pixels around a dirty bar which are redrawn, covering the highlight band.
+     */
+    private static final int SPAN_MARGIN = 2;
+
+    private static final Color NARROW_BAR = Color.DIMGRAY;
+    private static final Color CLICK_COLOR = Color.SKYBLUE;
+    private static final Font FONT = Font.font(10);
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final GraphicsContext gc = getGraphicsContext2D();
+
+    /**
+     * The elements drawn, and the listeners added to them.
+     */
+    private Element[] elements = new Element[0];
+    private ChangeListener<Object>[] listeners;
+
+    /**
+     * Indices of bars which have changed since the last flush.
+     */
+    private final BitSet dirty = new BitSet();
+
+    private final List<Highlight> highlights = new ArrayList<Highlight>();
+    private final AnimationTimer highlightTimer = new AnimationTimer() {
+
+        @Override
+        public void handle (long now) {
+            expireHighlights(now);
+            flush();
+            if (highlights.isEmpty()) {
+                stop();
+            }
+        }
+    };
+
+    /*
+     * Layout, in canvas coordinates.
+     */
+    private double padding;
+    private double axisX, axisY, plotTop;
+    private double barsLeft, pitch;
+    private double max, unit;
+
+    private int hovered = -1;
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new, empty BarchartCanvas.
+     */
+    BarchartCanvas () {
+        setOnMouseMoved(event -> setHovered(indexAt(event.getX())));
+        setOnMouseExited(event -> setHovered(-1));
+        setOnMouseClicked(event -> clicked(indexAt(event.getX())));
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Start drawing a list of elements, replacing any previous ones.
+     *
+     * @param newElements The elements to draw, in index order.
+     * @param width The width of the canvas.
+     * @param height The height of the canvas.
+     * @param newPadding Space around the plot for axes and labels.
+     */
+    @SuppressWarnings("unchecked")
+    void bind (List<Element> newElements, double width, double height, double newPadding) {
+        unbind();
+        setWidth(width);
+        setHeight(height);
+        padding = newPadding;
+
+        elements = newElements.toArray(new Element[newElements.size()]);
+        listeners = new ChangeListener[elements.length];
+        double newMax = 0;
+        for (int i = 0; i < elements.length; i++) {
+            final int index = i;
+            listeners[i] = (observable, oldValue, newValue) -> dirty.set(index);
+            elements[i].numProperty.addListener(listeners[i]);
+            elements[i].fillProperty.addListener(listeners[i]);
+            newMax = Math.max(newMax, value(i));
+        }
+
+        axisX = padding;
+        axisY = height - padding;
+        plotTop = CAPTION_HEIGHT + 4;
+        barsLeft = axisX + 5;
+        pitch = elements.length == 0 ? 0 : (width - padding - 20 - barsLeft) / elements.length;
+        setMax(newMax);
+    }
+
+    /**
+     * Stop observing the elements and clear the canvas.
+     */
+    void unbind () {
+        for (int i = 0; i < elements.length; i++) {
+            elements[i].numProperty.removeListener(listeners[i]);
+            elements[i].fillProperty.removeListener(listeners[i]);
+        }
+        elements = new Element[0];
+        listeners = null;
+        highlights.clear();
+        highlightTimer.stop();
+        dirty.clear();
+        hovered = -1;
+        gc.clearRect(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Set the value shown at the top of the plot, and redraw everything.
+     *
+     * @param newMax The largest value in the array.
+     */
+    void setMax (double newMax) {
+        max = newMax > 0 ? newMax : 1;
+        unit = (axisY - plotTop) / max;
+        redraw();
+    }
+
+    /**
+     * Redraw the canvas.
+     */
+    void redraw () {
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setFont(FONT);
+        drawAxes();
+        drawCaption();
+        drawSpan((int) axisX + 2, (int) Math.ceil(getWidth()));
+        dirty.clear();
+    }
+
+    /**
+     * Redraw the bars which have changed since the last call. Neighbouring bars are
+     * redrawn together.
+     */
+    void flush () {
+        int from = dirty.nextSetBit(0);
+        if (from < 0) {
+            return;
+        }
+
+        int spanStart = -1;
+        int spanEnd = -1;
+        while (from >= 0) {
+            int to = dirty.nextClearBit(from);
+            int x0 = (int) Math.floor(xOf(from)) - SPAN_MARGIN;
+            int x1 = (int) Math.ceil(xOf(to)) + SPAN_MARGIN;
+            if (x0 > spanEnd) {
+                if (spanStart >= 0) {
+                    drawSpan(spanStart, spanEnd);
+                }
+                spanStart = x0;
+            }
+            spanEnd = Math.max(spanEnd, x1);
+            from = dirty.nextSetBit(to);
+        }
+        drawSpan(spanStart, spanEnd);
+        dirty.clear();
+    }
+
+    /**
+     * Highlight a bar for a while.
+     *
+     * @param index The index of the bar.
+     * @param color The colour of the highlight.
+     * @param millis The time in milliseconds the highlight should last.
+     */
+    void highlight (int index, Color color, long millis) {
+        if (index < 0 || index >= elements.length) {
+            return;
+        }
+        long now = System.nanoTime();
+        highlights.add(new Highlight(index, color, now, now + millis * 1000000));
+        dirty.set(index);
+        highlightTimer.start();
+    }
+
+    private void expireHighlights (long now) {
+        for (Iterator<Highlight> it = highlights.iterator(); it.hasNext(); ) {
+            Highlight h = it.next();
+            dirty.set(h.index); // Fading.
+            if (now >= h.end) {
+                it.remove();
+            }
+        }
+    }
+
+    private void clicked (int index) {
+        if (index < 0) {
+            return;
+        }
+        highlight(index, CLICK_COLOR, 900);
+        AVElement.elementClicked(elements[index]);
+    }
+
+    private void setHovered (int index) {
+        if (index != hovered) {
+            hovered = index;
+            drawCaption();
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Drawing
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Redraw the bars and highlights within the pixel columns {@code [x0, x1)}.
+     */
+    private void drawSpan (int x0, int x1) {
+        x0 = Math.max(x0, (int) axisX + 2);
+        x1 = Math.min(x1, (int) Math.ceil(getWidth()));
+        if (x1 <= x0 || elements.length == 0) {
+            return;
+        }
+
+        double top = plotTop;
+        double bottom = axisY - 1;
+        gc.save();
+        gc.beginPath();
+        gc.rect(x0, top, x1 - x0, bottom - top);
+        gc.clip();
+        gc.clearRect(x0, top, x1 - x0, bottom - top);
+
+        if (pitch >= 1) {
+            int from = Math.max(0, (int) Math.floor((x0 - barsLeft) / pitch));
+            int to = Math.min(elements.length, (int) Math.ceil((x1 - barsLeft) / pitch));
+            for (int i = from; i < to; i++) {
+                drawBar(i, barPaint(i), xOf(i), barWidth());
+            }
+        } else {
+            // Several bars per column - show the largest.
+            for (int x = x0; x < x1; x++) {
+                int largest = largestInColumn(x);
+                if (largest >= 0) {
+                    drawBar(largest, barPaint(largest), x, 1);
+                }
+            }
+        }
+
+        long now = System.nanoTime();
+        for (Highlight h : highlights) {
+            drawHighlight(h, now);
+        }
+        gc.restore();
+    }
+
+    private void drawBar (int index, Paint paint, double x, double w) {
+        double h = Math.min(value(index) * unit, axisY - 1 - plotTop);
+        double y = axisY - 1 - h;
+        gc.setFill(paint);
+        gc.fillRect(x, y, w, h);
+        if (w >= OUTLINE_MIN_WIDTH) {
+            gc.setStroke(Color.BLACK);
+            gc.setLineWidth(1);
+            gc.strokeRect(x + 0.5, y + 0.5, w - 1, h - 1);
+        }
+    }
+
+    /**
+     * Draw a translucent band over the full height of the plot, fading out over time,
+     * and the bar itself in the highlight colour.
+     */
+    private void drawHighlight (Highlight h, long now) {
+        double fade = 1 - (double) (now - h.start) / (h.end - h.start);
+        fade = Math.max(0, Math.min(1, fade));
+        double x = xOf(h.index);
+        double w = Math.max(1, barWidth());
+
+        gc.setGlobalAlpha(0.3 * fade);
+        gc.setFill(h.color);
+        gc.fillRect(x - 1, plotTop, w + 2, axisY - 1 - plotTop);
+        gc.setGlobalAlpha(fade);
+        drawBar(h.index, h.color, x, w);
+        gc.setGlobalAlpha(1);
+    }
+
+    private void drawAxes () {
+        double w = getWidth();
+        gc.setStroke(Color.BLACK);
+        gc.setFill(Color.BLACK);
+        gc.setLineWidth(2);
+
+        // X-Axis
+        gc.strokeLine(0, axisY, w - 5, axisY);
+        gc.strokePolyline(new double[]{w - 20, w - 5, w - 20}, new double[]{axisY - 5, axisY, axisY + 5}, 3);
+
+        // Y-Axis
+        gc.strokeLine(axisX, CAPTION_HEIGHT, axisX, getHeight());
+        gc.strokePolyline(new double[]{axisX - 5, axisX, axisX + 5},
+                new double[]{CAPTION_HEIGHT + 10, CAPTION_HEIGHT, CAPTION_HEIGHT + 10}, 3);
+
+        // Value notches
+        gc.setLineWidth(1);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        double step = niceStep(VALUE_LABEL_SPACING / unit);
+        for (double v = step; v <= max; v += step) {
+            double y = axisY - v * unit;
+            gc.strokeLine(axisX - 3, y, axisX + 3, y);
+            gc.fillText(format(v), axisX - 4, y);
+        }
+
+        // Index labels
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        int indexStep = (int) Math.max(1, niceStep(INDEX_LABEL_SPACING / pitch));
+        for (int i = 0; i < elements.length; i += indexStep) {
+            gc.fillText(Integer.toString(i), xOf(i), axisY + 3);
+        }
+        gc.setTextBaseline(VPos.BOTTOM);
+        gc.fillText("Index", w - 45, axisY - 3);
+    }
+
+    /**
+     * Draw the caption strip: the axis name and the bar under the mouse, if any.
+     */
+    private void drawCaption () {
+        gc.clearRect(axisX + 6, 0, getWidth() - axisX - 6, CAPTION_HEIGHT);
+        gc.setFont(FONT);
+        gc.setFill(Color.BLACK);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.fillText("Value", axisX + 10, CAPTION_HEIGHT / 2);
+        if (hovered >= 0) {
+            gc.setTextAlign(TextAlignment.RIGHT);
+            gc.fillText("[" + hovered + "] = " + elements[hovered].getNumValue(), getWidth() - 5, CAPTION_HEIGHT / 2);
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    private double value (int index) {
+        double v = elements[index].getNumValue();
+        return v > 0 ? v : 0; // NaN and negative values are drawn as empty bars.
+    }
+
+    /**
+     * Returns the index of the largest bar within the pixel column {@code x}, which is the
+     * one drawn there when there are more bars than columns.
+     */
+    private int largestInColumn (int x) {
+        int from = Math.max(0, (int) Math.floor((x - barsLeft) / pitch));
+        int to = Math.min(elements.length, (int) Math.floor((x + 1 - barsLeft) / pitch));
+        int largest = -1;
+        for (int i = from; i < to; i++) {
+            if (largest < 0 || value(i) > value(largest)) {
+                largest = i;
+            }
+        }
+        return largest;
+    }
+
+    private Paint barPaint (int index) {
+        Paint paint = elements[index].fillProperty.getValue();
+        if (paint == null || barWidth() < OUTLINE_MIN_WIDTH && Color.WHITE.equals(paint)) {
+            return NARROW_BAR; // White bars are invisible without an outline.
+        }
+        return paint;
+    }
+
+    private double barWidth () {
+        return pitch >= 3 ? pitch - 1 : pitch;
+    }
+
+    /**
+     * Returns the smallest of 1, 2 and 5 times a power of ten which is at least
+     * {@code raw}.
+     */
+    private static double niceStep (double raw) {
+        if (!(raw > 0) || Double.isInfinite(raw)) {
+            return 1;
+        }
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        for (double m : new double[]{1, 2, 5}) {
+            if (m * magnitude >= raw) {
+                return m * magnitude;
+            }
+        }
+        return 10 * magnitude;
+    }
+
+    private static String format (double v) {
+        if (v >= 1e6 && v % 1e6 == 0) {
+            return (long) (v / 1e6) + "M";
+        } else if (v >= 1e3 && v % 1e3 == 0) {
+            return (long) (v / 1e3) + "k";
+        } else if (v == Math.rint(v)) {
+            return Long.toString((long) v);
+        }
+        return String.format("%.2g", v);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the x-coordinate of the left edge of a bar.
+     *
+     * @param index The index of the bar.
+     * @return The x-coordinate of the bar.
+     */
+    double xOf (int index) {
+        return barsLeft + pitch * index;
+    }
+
+    /**
+     * Returns the y-coordinate of the x-axis.
+     *
+     * @return The y-coordinate of the x-axis.
+     */
+    double getAxisY () {
+        return axisY;
+    }
+
+    /**
+     * Returns the index of the bar at an x-coordinate.
+     *
+     * @param x The x-coordinate.
+     * @return The index of the bar, or {@code -1} if there is no bar at {@code x}.
+     */
+    int indexAt (double x) {
+        if (pitch <= 0 || x < barsLeft) {
+            return -1;
+        }
+        if (pitch < 1) {
+            return largestInColumn((int) Math.floor(x));
+        }
+        int index = (int) ((x - barsLeft) / pitch);
+        return index < elements.length ? index : -1;
+    }
+
+    /**
+     * Returns the number of bars.
+     *
+     * @return The number of bars.
+     */
+    int size () {
+        return elements.length;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Nested types
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * A bar highlighted for an operation.
+     */
+    private static final class Highlight {
+
+        private final int index;
+        private final Color color;
+        private final long start;
+        private final long end;
+
+        private Highlight (int index, Color color, long start, long end) {
+            this.index = index;
+            this.color = color;
+            this.start = start;
+            this.end = Math.max(end, start + 1);
+        }
+    }
+}
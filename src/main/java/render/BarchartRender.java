@@ -22,10 +22,33 @@ import render.element.ElementShape;
 
 import java.util.Arrays;
 
+/**
+ * Render drawing arrays as bar charts. Arrays with more than {@link #CANVAS_THRESHOLD}
+ * elements are drawn on a canvas by a {@link BarchartCanvas} instead of using one node per
+ * bar.
+ */
 public class BarchartRender extends ARender implements MinMaxListener {
 
     public static final ElementShape ELEMENT_STYLE = ElementShape.BAR_ELEMENT;
 
+    /**
+     * Number of elements above which bars are drawn on a canvas.
+     */
+    public static final int CANVAS_THRESHOLD = 2000;
+
+    /**
+     * Largest width of the bars on the canvas, in pixels.
+     */
+    private static final double CANVAS_PLOT_WIDTH = 2000;
+
+    /*
+     * Highlight colours used on the canvas.
+     */
+    private static final Color READ_COLOR = Color.CORNFLOWERBLUE;
+    private static final Color WRITE_COLOR = Color.ORANGERED;
+    private static final Color SWAP_COLOR = Color.MEDIUMPURPLE;
+    private static final Color REMOVE_COLOR = Color.DARKGRAY;
+
     // ============================================================= //
     /*
      *
@@ -44,6 +67,13 @@ public class BarchartRender extends ARender implements MinMaxListener {
 
     private final Pane axes = new Pane();
 
+    /**
+     * Holds the canvas, created when first needed.
+     */
+    private final Pane canvasPane = new Pane();
+    private BarchartCanvas canvas;
+    private boolean canvasMode;
+
     // ============================================================= //
     /*
      *
@@ -70,7 +100,7 @@ public class BarchartRender extends ARender implements MinMaxListener {
 
         // Axes
         axes.setMouseTransparent(true);
-        contentPane.getChildren().add(axes);
+        contentPane.getChildren().addAll(axes, canvasPane);
 
         if (renderHeight < 0) {
             if (struct instanceof Array) {
@@ -111,6 +141,9 @@ public class BarchartRender extends ARender implements MinMaxListener {
     }
 
     private double getX (int index) {
+        if (canvasMode) {
+            return canvas.xOf(index);
+        }
         return (nodeWidth + hSpace) * index + hSpace + padding + 5;
     }
 
@@ -126,6 +159,18 @@ public class BarchartRender extends ARender implements MinMaxListener {
             repaintAll();
         }
         super.render();
+        if (canvasMode) {
+            canvas.flush();
+        }
+    }
+
+    @Override
+    public void reset () {
+        super.reset();
+        if (canvas != null) {
+            canvas.unbind();
+        }
+        canvasMode = false;
     }
 
     @Override
@@ -144,9 +189,25 @@ public class BarchartRender extends ARender implements MinMaxListener {
         contentPane.setBackground(null);
 
         visualMap.clear();
+        markAllDirty();
+
+        boolean useCanvas = struct.getElements().size() > CANVAS_THRESHOLD;
+        if (useCanvas != canvasMode) {
+            canvasMode = useCanvas;
+            calculateHeight(struct instanceof Array ? ((Array) struct).getMax() : 0);
+            return true; // Repainted by calculateHeight().
+        }
 
         calculateSize();
 
+        if (canvasMode) {
+            canvas.bind(struct.getElements(), renderWidth, renderHeight, padding);
+            canvasPane.getChildren().add(canvas);
+            return true;
+        } else if (canvas != null) {
+            canvas.unbind();
+        }
+
         // Create nodes
         BarchartElement newVis;
 
@@ -155,14 +216,26 @@ public class BarchartRender extends ARender implements MinMaxListener {
             newVis.setLayoutX(this.getX(e));
 
             defaultNodePane.getChildren().add(newVis);
-            visualMap.put(Arrays.toString(((IndexedElement) e).getIndex()), newVis);
+            visualMap.put(((IndexedElement) e).getIndex(), newVis);
             bellsAndWhistles(e, newVis);
         }
         positionBars();
         drawAxes();
+        refreshDetail();
         return true;
     }
 
+    /**
+     * Bars grow from the axis rather than from {@link #getY(Element)}, and large charts
+     * are drawn by {@link BarchartCanvas} instead.
+     *
+     * @return {@code false}.
+     */
+    @Override
+    protected boolean supportsBlocks () {
+        return false;
+    }
+
     // ============================================================= //
     /*
      *
@@ -278,6 +351,12 @@ public class BarchartRender extends ARender implements MinMaxListener {
     @Override
     public void calculateSize () {
         renderWidth = struct.getElements().size() * (nodeWidth + hSpace) + padding * 3;
+        if (canvasMode) {
+            renderWidth = Math.min(renderWidth, CANVAS_PLOT_WIDTH + padding * 3 + 20);
+            if (canvas == null) {
+                canvas = new BarchartCanvas();
+            }
+        }
         xAxisY = renderHeight - padding;
         rightWallX = renderWidth - padding;
         renderHeight = renderHeight < 100 ? 100 : renderHeight;
@@ -335,6 +414,17 @@ public class BarchartRender extends ARender implements MinMaxListener {
      */
     @Override
     public void animateReadWrite (Element src, ARender srcRender, Element tar, ARender tarRender, long millis) {
+        if (canvasMode) {
+            if (src != null && srcRender == this) {
+                canvas.highlight(index(src), READ_COLOR, millis);
+            } else if (src != null && srcRender != null) {
+                srcRender.animateReadWrite(src, srcRender, null, null, millis); // Show the read there.
+            }
+            if (tar != null && tarRender == this) {
+                canvas.highlight(index(tar), WRITE_COLOR, millis);
+            }
+            return;
+        }
         if (tar != null || src == null) {
             super.animateReadWrite(src, srcRender, tar, tarRender, millis);
             return;
@@ -345,8 +435,7 @@ public class BarchartRender extends ARender implements MinMaxListener {
 
         double y2 = y1 - nodeWidth / 2;
         int[] i = ((IndexedElement) src).getIndex();
-        Arrays.copyOf(i, i.length);
-        final AVElement orig = visualMap.get(Arrays.toString(i));
+        final AVElement orig = visualMap.get(i);
         orig.setGhost(true);
 
         ParallelTransition up = ARenderAnimation.linear(src, x, y1, x, y2, millis / 3, this);
@@ -357,9 +446,39 @@ public class BarchartRender extends ARender implements MinMaxListener {
         st.play();
     }
 
+    /**
+     * Highlight the swapped element on the canvas, if in canvas mode. The other element
+     * is handled by its own render.
+     */
+    @Override
+    public void animateSwap (Element var1, ARender render1, Element var2, ARender render2, long millis) {
+        if (!canvasMode) {
+            super.animateSwap(var1, render1, var2, render2, millis);
+        } else if (render1 == this) {
+            canvas.highlight(index(var1), SWAP_COLOR, millis);
+        }
+    }
+
+    @Override
+    public void animateToggleScope (Element tar, long millis) {
+        if (canvasMode) {
+            canvas.highlight(index(tar), REMOVE_COLOR, millis);
+        } else {
+            super.animateToggleScope(tar, millis);
+        }
+    }
+
+    private static int index (Element e) {
+        return e instanceof IndexedElement ? ((IndexedElement) e).getIndex()[0] : -1;
+    }
+
     @Override
     public void maxChanged (double newMax) {
-        calculateHeight(newMax);
+        if (canvasMode) {
+            canvas.setMax(newMax); // Height is fixed on the canvas.
+        } else {
+            calculateHeight(newMax);
+        }
     }
 
     @Override
@@ -374,7 +493,11 @@ public class BarchartRender extends ARender implements MinMaxListener {
      */
     private void calculateHeight (double v) {
         double oldHeight = renderHeight;
-        renderHeight = v * nodeHeight + padding * 2 + nodeHeight / 2;
+        if (canvasMode) {
+            renderHeight = Const.DEFAULT_RENDER_HEIGHT; // Bars are scaled to fit instead.
+        } else {
+            renderHeight = v * nodeHeight + padding * 2 + nodeHeight / 2;
+        }
         calculateSize();
         repaintAll();
         setTranslateY(getTranslateY() + (oldHeight - renderHeight));
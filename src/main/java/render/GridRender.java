@@ -6,14 +6,30 @@ import contract.datastructure.Array;
 import contract.datastructure.DataStructure;
 import contract.datastructure.Element;
 import contract.datastructure.IndexedElement;
+import javafx.animation.FadeTransition;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.util.Duration;
+import render.assets.Const;
 import render.element.AVElement;
 import render.element.AVElementFactory;
 import render.element.ElementShape;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
- * Render drawing data structures with their elements in a grid.
+ * Render drawing data structures with their elements in a grid. Structures with more than
+ * {@link #VIRTUAL_THRESHOLD} elements are virtualised: only the cells in view have nodes,
+ * which are recycled as the render is panned or zoomed.
  *
  * @author Richard Sundqvist
  */
@@ -21,9 +37,41 @@ public class GridRender extends ARender {
 
     private static final ElementShape DEFAULT_ELEMENT_STYLE = ElementShape.RECTANGLE;
 
+    /**
+     * Number of elements above which only the cells in view are given nodes.
+     */
+    public static final int VIRTUAL_THRESHOLD = 2500;
+
+    /**
+     * Number of cells beyond the edges of the view which are given nodes.
+     */
+    private static final int VIEW_MARGIN = 2;
+
+    /**
+     * Distance from the edge of the view at which operations on hidden cells are shown.
+     */
+    private static final double INDICATOR_INSET = 8;
+
     private final Order majorOrder;
     private int[] dims;
 
+    /**
+     * True if only the cells in view have nodes.
+     */
+    private boolean virtual;
+    /**
+     * Elements by cell, stored as {@code cells[y * columns + x]}, where x and y are the
+     * horizontal and vertical positions in the grid.
+     */
+    private Element[] cells;
+    private int columns, rows;
+    /**
+     * The cells with nodes as {x0, y0, x1, y1}, upper bounds exclusive.
+     */
+    private final int[] shown = new int[4];
+
+    private final ChangeListener<Number> sceneResized = (observable, oldValue, newValue) -> updateView();
+
     /**
      * Creates a new GridRender.
      *
@@ -37,6 +85,20 @@ public class GridRender extends ARender {
                        double vspace) {
         super(struct, width, height, hspace, vspace);
         this.majorOrder = majorOrder;
+
+        // Panning, zooming and resizing the window change which cells are in view.
+        defaultNodePane.localToSceneTransformProperty().addListener((observable, oldValue, newValue) -> updateView());
+        sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (oldScene != null) {
+                oldScene.widthProperty().removeListener(sceneResized);
+                oldScene.heightProperty().removeListener(sceneResized);
+            }
+            if (newScene != null) {
+                newScene.widthProperty().addListener(sceneResized);
+                newScene.heightProperty().addListener(sceneResized);
+            }
+            updateView();
+        });
     }
 
     @Override
@@ -50,8 +112,9 @@ public class GridRender extends ARender {
 
     @Override
     public boolean repaintAll () {
+        virtual = struct.getElements().size() > VIRTUAL_THRESHOLD;
 
-        if (!super.repaintAll()) {
+        if (!(virtual ? repaintVisible() : super.repaintAll())) {
             return false; // Nothing to render.
         }
 
@@ -67,6 +130,225 @@ public class GridRender extends ARender {
         return true;
     }
 
+    @Override
+    public void reset () {
+        super.reset();
+        virtual = false; // Nodes are gone until the next repaint.
+        cells = null;
+    }
+
+    /**
+     * Repaint by indexing the elements by cell and creating nodes for the cells in view.
+     */
+    private boolean repaintVisible () {
+        if (contentPane == null) {
+            return false; // Not yet loaded.
+        }
+        clearForRepaint();
+
+        columns = majorOrder == Order.ROW_MAJOR ? dims[0] : dims[1];
+        rows = majorOrder == Order.ROW_MAJOR ? dims[1] : dims[0];
+        cells = new Element[columns * rows];
+        for (Element e : struct.getElements()) {
+            int[] index = ((IndexedElement) e).getIndex();
+            int x = column(index);
+            int y = row(index);
+            if (x >= 0 && x < columns && y >= 0 && y < rows) {
+                cells[y * columns + x] = e;
+            }
+        }
+
+        Arrays.fill(shown, 0);
+        updateView();
+        refreshDetail();
+        return true;
+    }
+
+    @Override
+    protected void detailChanged (Detail oldDetail) {
+        updateView(); // Nodes are released in and restored after Detail.BLOCKS.
+    }
+
+    /**
+     * Give nodes to the cells which have come into view, and recycle the nodes of cells
+     * which have left it. No cell is in view in {@link Detail#BLOCKS}, where the blocks are
+     * drawn instead.
+     */
+    private void updateView () {
+        if (!virtual || cells == null) {
+            return;
+        }
+        int[] view = getDetail() == Detail.BLOCKS ? new int[4] : visibleCells();
+        if (Arrays.equals(view, shown)) {
+            return;
+        }
+
+        // Release nodes which have left the view. Only cells in the previous view have nodes.
+        Set<AVElement> removed = new HashSet<AVElement>();
+        for (int y = shown[1]; y < shown[3]; y++) {
+            for (int x = shown[0]; x < shown[2]; x++) {
+                Element e = cells[y * columns + x];
+                if (e == null || contains(view, x, y)) {
+                    continue;
+                }
+                AVElement ave = visualMap.remove(((IndexedElement) e).getIndex());
+                if (ave != null) {
+                    removed.add(ave);
+                    elementPool.release(ave);
+                }
+            }
+        }
+        defaultNodePane.getChildren().removeAll(removed);
+
+        // Create or reuse nodes for cells which have come into view.
+        List<AVElement> added = new ArrayList<AVElement>();
+        for (int y = view[1]; y < view[3]; y++) {
+            for (int x = view[0]; x < view[2]; x++) {
+                Element e = cells[y * columns + x];
+                if (e == null || contains(shown, x, y)) {
+                    continue;
+                }
+                AVElement ave = obtainVisualElement(e);
+                ave.setLayoutX(getX(e));
+                ave.setLayoutY(getY(e));
+                visualMap.put(((IndexedElement) e).getIndex(), ave);
+                added.add(ave);
+                bellsAndWhistles(e, ave);
+            }
+        }
+        defaultNodePane.getChildren().addAll(added);
+
+        System.arraycopy(view, 0, shown, 0, 4);
+        if (!added.isEmpty()) {
+            setRelativeNodeSizes();
+        }
+    }
+
+    /**
+     * Returns the cells in view as {x0, y0, x1, y1}, including a margin.
+     */
+    private int[] visibleCells () {
+        Bounds view = viewBounds();
+        if (view == null) {
+            return new int[4];
+        }
+
+        // Column major grids swap the spacing of the axes, see getX() and getY().
+        boolean rowMajor = majorOrder == Order.ROW_MAJOR;
+        double xSpace = rowMajor ? hSpace : vSpace;
+        double xSize = rowMajor ? nodeWidth : nodeHeight;
+        double ySpace = rowMajor ? vSpace : hSpace;
+        double ySize = rowMajor ? nodeHeight : nodeWidth;
+
+        return new int[]{Math.max(0, slot(view.getMinX(), xSpace, xSize, columns) - VIEW_MARGIN),
+                Math.max(0, slot(view.getMinY(), ySpace, ySize, rows) - VIEW_MARGIN),
+                Math.min(columns, slot(view.getMaxX(), xSpace, xSize, columns) + 1 + VIEW_MARGIN),
+                Math.min(rows, slot(view.getMaxY(), ySpace, ySize, rows) + 1 + VIEW_MARGIN)};
+    }
+
+    /**
+     * Returns the part of the scene covered by the render, in the coordinates of the
+     * node pane, or {@code null} if the render is hidden.
+     */
+    private Bounds viewBounds () {
+        if (!contentPane.isVisible()) {
+            return null;
+        }
+        Scene scene = getScene();
+        if (scene == null) {
+            return new BoundingBox(0, 0, Const.DEFAULT_RENDER_WIDTH, Const.DEFAULT_RENDER_HEIGHT);
+        }
+        return defaultNodePane.sceneToLocal(new BoundingBox(0, 0, scene.getWidth(), scene.getHeight()));
+    }
+
+    /**
+     * Returns the slot at a coordinate along an axis, clamped to {@code [0, count]}.
+     */
+    private static int slot (double coordinate, double space, double size, int count) {
+        int slot = (int) Math.floor((coordinate - space) / (space + size));
+        return Math.max(0, Math.min(count, slot));
+    }
+
+    private static boolean contains (int[] range, int x, int y) {
+        return x >= range[0] && x < range[2] && y >= range[1] && y < range[3];
+    }
+
+    private int column (int[] index) {
+        if (majorOrder == Order.ROW_MAJOR) {
+            return index[0];
+        }
+        return index.length == 2 ? index[1] : 0;
+    }
+
+    private int row (int[] index) {
+        if (majorOrder == Order.ROW_MAJOR) {
+            return index.length == 2 ? index[1] : 0;
+        }
+        return index[0];
+    }
+
+    /**
+     * Returns {@code true} if the element does not currently have a node.
+     */
+    private boolean hidden (Element e) {
+        return virtual && !visualMap.contains(((IndexedElement) e).getIndex());
+    }
+
+    /**
+     * Show an operation on a cell without a node as a fading dot at the edge of the view,
+     * in the direction of the cell.
+     */
+    private void indicate (Element e, long millis) {
+        Bounds view = viewBounds();
+        if (view == null) {
+            return;
+        }
+        double x = getX(e) + nodeWidth / 2;
+        double y = getY(e) + nodeHeight / 2;
+        x = Math.max(view.getMinX() + INDICATOR_INSET, Math.min(view.getMaxX() - INDICATOR_INSET, x));
+        y = Math.max(view.getMinY() + INDICATOR_INSET, Math.min(view.getMaxY() - INDICATOR_INSET, y));
+
+        Circle dot = new Circle(x, y, 6, Color.ORANGERED);
+        dot.setMouseTransparent(true);
+        defaultNodePane.getChildren().add(dot);
+
+        FadeTransition ft = new FadeTransition(Duration.millis(millis), dot);
+        ft.setFromValue(1);
+        ft.setToValue(0);
+        ft.setOnFinished(event -> defaultNodePane.getChildren().remove(dot));
+        ft.play();
+    }
+
+    @Override
+    public void animateReadWrite (Element src, ARender srcRender, Element tar, ARender tarRender, long millis) {
+        // The animated node is the target, or the source if there is no target.
+        Element animated = tar != null ? tar : src;
+        ARender owner = tar != null ? tarRender : srcRender;
+        if (owner == this && animated != null && hidden(animated)) {
+            indicate(animated, millis);
+        } else {
+            super.animateReadWrite(src, srcRender, tar, tarRender, millis);
+        }
+    }
+
+    @Override
+    public void animateSwap (Element var1, ARender render1, Element var2, ARender render2, long millis) {
+        if (hidden(var1)) {
+            indicate(var1, millis);
+        } else {
+            super.animateSwap(var1, render1, var2, render2, millis);
+        }
+    }
+
+    @Override
+    public void animateToggleScope (Element tar, long millis) {
+        if (hidden(tar)) {
+            indicate(tar, millis);
+        } else {
+            super.animateToggleScope(tar, millis);
+        }
+    }
+
     @Override
     public double getX (Element e) {
         if (e == null || !(e instanceof IndexedElement)) {
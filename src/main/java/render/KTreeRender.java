@@ -12,7 +12,6 @@ import render.element.AVElement;
 import render.element.AVElementFactory;
 import render.element.ElementShape;
 
-import java.util.Arrays;
 
 // TODO Draw arrays with index.length > 1 by reducing to linear index.
 
@@ -58,6 +57,12 @@ public class KTreeRender extends ARender {
      * Total capacity for a tree with depth {@link #totDepth}.
      */
     private int completedSize;
+    /**
+     * Coordinates of every index below {@link #completedSize}, before adjustment for node
+     * size. Rebuilt by {@link #calculateSize()}, which may be called by the super
+     * constructor before they are initialised.
+     */
+    private double[] xs, ys;
 
     // ============================================================= //
     /*
@@ -143,11 +148,8 @@ public class KTreeRender extends ARender {
     protected void bellsAndWhistles (Element ae, AVElement childVis) {
         // System.out.println("ktree: baw shape = " + childVis.getShape());
 
-        new IndexedElement(0, new int[]{(((IndexedElement) ae).getIndex()[0] - 1) / K});
-
-        // VisualElement parentVis = visualElementsMapping.get(parent_clone);
-        AVElement parentVis = visualMap
-                .get(Arrays.toString(new int[]{(((IndexedElement) ae).getIndex()[0] - 1) / K}));
+        int childIndex = ((IndexedElement) ae).getIndex()[0];
+        AVElement parentVis = childIndex > 0 ? visualMap.get((childIndex - 1) / K) : null;
 
         double dx = nodeWidth / 2;
         double dy = nodeHeight / 2;
@@ -186,7 +188,7 @@ public class KTreeRender extends ARender {
         AVElement ghostVis;
         for (; index < completedSize; index++) {
             IndexedElement ghostElem = new IndexedElement(Double.MAX_VALUE, new int[]{index});
-            ghostVis = this.createVisualElement(ghostElem);
+            ghostVis = obtainVisualElement(ghostElem);
             ghostVis.setLayoutX(this.getX(ghostElem));
             ghostVis.setLayoutY(this.getY(ghostElem));
             ghostVis.setGhost(true);
@@ -203,18 +205,24 @@ public class KTreeRender extends ARender {
         }
 
         int index = ((IndexedElement) e).getIndex()[0];
+        double x = xs != null && index < xs.length ? xs[index] : getX(index);
+
+        return x + Tools.getAdjustedX(this, e);
+    }
+
+    /**
+     * Calculate the x-coordinate of an index, before adjustment for node size.
+     */
+    private double getX (int index) {
         double x;
-        int breadth, depth;
         if (index == 0) { // Root element
             double p = Tools.pow(K, totDepth) / 2;
             x = hSpace + (hSpace + nodeWidth) * p - (K + 1) % 2 * (nodeWidth + hSpace) / 2;
         } else {
-            depth = getDepth(index);
-            breadth = getBreadth(index, depth);
-            x = this.getX(breadth, depth);
+            int depth = getDepth(index);
+            x = this.getX(getBreadth(index, depth), depth);
         }
-
-        return x + hSpace + Tools.getAdjustedX(this, e);
+        return x + hSpace;
     }
 
     private double getX (int breadth, int depth) {
@@ -241,12 +249,7 @@ public class KTreeRender extends ARender {
         }
 
         int index = ((IndexedElement) e).getIndex()[0];
-
-        double y = vSpace;
-
-        if (index != 0) {
-            y = y + this.getY(getDepth(index)); // Should not be used for root.
-        }
+        double y = ys != null && index < ys.length ? ys[index] : vSpace + getY(getDepth(index));
 
         return y + Tools.getAdjustedY(this, e);
     }
@@ -256,12 +259,7 @@ public class KTreeRender extends ARender {
     }
 
     private int getDepth (int index) {
-        int depth = 1;
-        // Calculate depth and breadth
-        while (Tools.lowerLevelSum(depth, K) <= index) {
-            depth++;
-        }
-        return depth - 1;
+        return Tools.depthOf(index, K);
     }
 
     private int getBreadth (int index, int depth) {
@@ -299,6 +297,33 @@ public class KTreeRender extends ARender {
         renderWidth = totBreadth * (nodeWidth + hSpace) + hSpace * 3;
         renderHeight = (totDepth + 1) * (nodeHeight + vSpace) + vSpace;
         setRestrictedSize(renderWidth, renderHeight);
+        cacheCoordinates();
+    }
+
+    /**
+     * Calculate the coordinates of every index of the completed tree, level by level.
+     */
+    private void cacheCoordinates () {
+        if (xs == null || xs.length != completedSize) {
+            xs = new double[completedSize];
+            ys = new double[completedSize];
+        }
+        if (completedSize == 0) {
+            return;
+        }
+
+        xs[0] = getX(0);
+        ys[0] = vSpace;
+        int first = 1;
+        for (int depth = 1; first < completedSize; depth++) {
+            int end = Math.min(completedSize, first + Tools.pow(K, depth));
+            double y = vSpace + getY(depth);
+            for (int index = first; index < end; index++) {
+                xs[index] = hSpace + getX(index - first, depth);
+                ys[index] = y;
+            }
+            first = end;
+        }
     }
 
     @Override
@@ -310,6 +335,12 @@ public class KTreeRender extends ARender {
         return ve;
     }
 
+    @Override
+    protected void reuseVisualElement (Element e, AVElement ve) {
+        ve.setInfoPos(Pos.TOP_LEFT);
+        ve.setInfoArray(((IndexedElement) e).getIndex());
+    }
+
     @Override
     protected AVElement createVisualElement (double value, Color color) {
         elementStyle = elementStyle == null ? DEFAULT_ELEMENT_STYLE : elementStyle;
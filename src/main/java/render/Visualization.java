@@ -19,6 +19,7 @@ import render.assets.Const;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Handler class for rendering an ExecutionModel.
@@ -27,6 +28,12 @@ import java.util.HashMap;
  */
 public class Visualization extends StackPane {
 
+    /**
+     * The maximum number of operations animated by {@link #renderBatch(List)}. Earlier
+     * operations in the batch are drawn, but not animated.
+     */
+    public static final int MAX_BATCH_ANIMATIONS = 32;
+
     // ============================================================= //
     /*
      *
@@ -125,6 +132,7 @@ public class Visualization extends StackPane {
      * @param op An operation to animate.
      */
     public void render (Operation op) {
+        markDirty(op);
         for (Object rm : managerPane.getChildren()) {
             ((ARenderManager) rm).getRender().render();
         }
@@ -133,6 +141,77 @@ public class Visualization extends StackPane {
         }
     }
 
+    /**
+     * Update the renders once for a batch of operations, and animate the last
+     * {@link #MAX_BATCH_ANIMATIONS} of them together.
+     *
+     * @param ops The operations to render, in execution order.
+     */
+    public void renderBatch (List<Operation> ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        for (Operation op : ops) {
+            markDirty(op);
+        }
+        for (Object rm : managerPane.getChildren()) {
+            ((ARenderManager) rm).getRender().render();
+        }
+        if (animate) {
+            for (int i = Math.max(0, ops.size() - MAX_BATCH_ANIMATIONS); i < ops.size(); i++) {
+                animate(ops.get(i));
+            }
+        }
+    }
+
+    /**
+     * Mark the elements touched by an operation in their renders, so that only those are
+     * updated. Every render is fully updated for {@code null} or unknown operations.
+     *
+     * @param op The operation which was executed.
+     */
+    private void markDirty (Operation op) {
+        if (op == null) {
+            for (ARenderManager arm : managerMap.values()) {
+                arm.getRender().markAllDirty();
+            }
+            return;
+        }
+        switch (op.operation) {
+            case read:
+            case write:
+                markDirty(((OP_ReadWrite) op).getSource());
+                markDirty(((OP_ReadWrite) op).getTarget());
+                break;
+            case swap:
+                markDirty(((OP_Swap) op).getVar1());
+                markDirty(((OP_Swap) op).getVar2());
+                break;
+            case remove:
+                markDirty(((OP_ToggleScope) op).getTarget());
+                break;
+            case message:
+                // Touches no elements.
+                break;
+            default:
+                markDirty((Operation) null);
+                break;
+        }
+    }
+
+    private void markDirty (Locator locator) {
+        if (locator == null) {
+            return;
+        }
+        ARenderManager arm = managerMap.get(locator.identifier);
+        if (arm != null) {
+            Element e = arm.getDataStructure().getElement(locator);
+            if (e != null) {
+                arm.getRender().markDirty(e);
+            }
+        }
+    }
+
     /**
      * Force Render initialisation.
      */
@@ -0,0 +1,279 @@
+package render.assets;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import model.ExecutionModel;
+import model.ModelController;
+import render.Visualization;
+
+import java.util.ArrayDeque;
+
+/**
+ * Lets the visualization of a live session catch up when operations arrive faster than
+ * they can be animated. While the backlog exceeds a threshold, operations are applied
+ * through {@link ExecutionModel#fastForward(int)} without animation and only every Nth
+ * state is rendered. N adapts to the measured cost of applying operations and rendering,
+ * so that catching up fits in the frame budget. Animated playback resumes once the
+ * backlog is small again.<br>
+ * <br>
+ * {@link #frame(long)} must be called once per frame on the JavaFX Application thread.
+ */
+public class CatchUp {
+
+    /**
+     * Default backlog, in operations, at which catching up starts.
+     */
+    public static final int DEFAULT_THRESHOLD = 200;
+
+    /**
+     * Time per frame which may be spent catching up, in nanoseconds.
+     */
+    private static final long FRAME_BUDGET = 10000000;
+
+    /**
+     * Weight of the latest measurement in the moving averages.
+     */
+    private static final double SMOOTHING = 0.25;
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final ModelController modelController;
+    private final ExecutionModel model;
+    private final Visualization visualization;
+
+    /**
+     * Backlog at which catching up starts. Stops at a quarter of this.
+     */
+    private int threshold = DEFAULT_THRESHOLD;
+    private boolean enabled = true;
+    private boolean resumeAutoExecution;
+
+    /**
+     * Moving averages of the cost of applying a single operation and rendering a state.
+     */
+    private double applyNanos = 1000;
+    private double renderNanos;
+
+    /**
+     * Frames between rendered states, and frames since the last render.
+     */
+    private int renderInterval = 1;
+    private int framesSinceRender;
+
+    /**
+     * Operations between rendered states in the latest frame.
+     */
+    private int step;
+
+    /**
+     * Arrival times as {last index, time}, oldest first.
+     */
+    private final ArrayDeque<long[]> arrivals = new ArrayDeque<long[]>();
+    private int lastSize;
+
+    private final ReadOnlyBooleanWrapper activeProperty = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyStringWrapper statusProperty = new ReadOnlyStringWrapper("");
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new CatchUp.
+     *
+     * @param visualController The controller of the model and visualization to manage.
+     */
+    public CatchUp (VisualController visualController) {
+        modelController = visualController.getModelController();
+        model = modelController.getModel();
+        visualization = visualController.getVisualization();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Record newly arrived operations, update the lag and apply the catch-up policy.
+     *
+     * @param now The time of the frame, as given by {@link System#nanoTime()}.
+     */
+    public void frame (long now) {
+        int size = model.getOperations().size();
+        if (size < lastSize) {
+            arrivals.clear(); // Replaced or cleared.
+        } else if (size > lastSize) {
+            arrivals.add(new long[]{size - 1, now});
+        }
+        lastSize = size;
+
+        int backlog = backlog();
+        if (enabled && !isActive() && backlog > threshold) {
+            start();
+        }
+        if (isActive()) {
+            if (backlog <= threshold / 4 || !enabled) {
+                stop();
+            } else {
+                catchUp(backlog);
+            }
+        }
+
+        updateStatus(now);
+    }
+
+    /**
+     * Apply as many operations as fit in the frame budget, rendering the resulting state
+     * if it is time to.
+     */
+    private void catchUp (int backlog) {
+        double renderShare = renderNanos / renderInterval;
+        double budget = Math.max(FRAME_BUDGET / 4, FRAME_BUDGET - renderShare);
+        int count = (int) Math.min(backlog, Math.max(1, budget / applyNanos));
+
+        long start = System.nanoTime();
+        int applied = model.fastForward(model.getIndex() + count);
+        if (applied > 0) {
+            applyNanos = average(applyNanos, (double) (System.nanoTime() - start) / applied);
+        }
+
+        framesSinceRender++;
+        if (framesSinceRender >= renderInterval || backlog() == 0) {
+            start = System.nanoTime();
+            visualization.render(null);
+            renderNanos = average(renderNanos, System.nanoTime() - start);
+            framesSinceRender = 0;
+
+            // Rendering may use at most half the budget on average.
+            renderInterval = (int) Math.max(1, Math.ceil(renderNanos / (FRAME_BUDGET / 2)));
+        }
+        step = count * renderInterval;
+    }
+
+    private void start () {
+        activeProperty.set(true);
+        resumeAutoExecution = modelController.autoExecutingProperty().get();
+        modelController.stopAutoExecution();
+        framesSinceRender = 0;
+    }
+
+    private void stop () {
+        activeProperty.set(false);
+        step = 0;
+        visualization.render(null);
+        if (resumeAutoExecution && enabled) {
+            modelController.startAutoExecution();
+        }
+    }
+
+    /**
+     * Forget the arrival history, for example when a new session starts.
+     */
+    public void reset () {
+        if (isActive()) {
+            activeProperty.set(false);
+            step = 0;
+        }
+        arrivals.clear();
+        lastSize = 0;
+        statusProperty.set("");
+    }
+
+    private void updateStatus (long now) {
+        int index = model.getIndex();
+        while (!arrivals.isEmpty() && arrivals.peek()[0] <= index) {
+            arrivals.poll();
+        }
+
+        int backlog = backlog();
+        if (backlog == 0 || arrivals.isEmpty()) {
+            statusProperty.set(lastSize > 0 ? "Live: up to date" : "");
+            return;
+        }
+
+        double lag = (now - arrivals.peek()[1]) / 1e9;
+        String status = String.format("Live: %.1f s behind%n%d ops queued", lag, backlog);
+        if (isActive()) {
+            status += String.format("%nCatching up: 1/%d", step);
+        }
+        statusProperty.set(status);
+    }
+
+    private int backlog () {
+        int index = model.getIndex();
+        return index < 0 ? 0 : Math.max(0, model.getOperations().size() - 1 - index);
+    }
+
+    private static double average (double average, double sample) {
+        return average == 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters and Setters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Enable or disable catching up. Disabling stops an ongoing catch-up.
+     *
+     * @param enabled The new setting.
+     */
+    public void setEnabled (boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Set the backlog at which catching up starts.
+     *
+     * @param threshold The backlog in operations.
+     */
+    public void setThreshold (int threshold) {
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Returns {@code true} if the visualization is currently catching up.
+     *
+     * @return {@code true} if catching up.
+     */
+    public boolean isActive () {
+        return activeProperty.get();
+    }
+
+    /**
+     * Returns a property indicating whether the visualization is catching up.
+     *
+     * @return A ReadOnlyBooleanProperty.
+     */
+    public ReadOnlyBooleanProperty activeProperty () {
+        return activeProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns a property describing how far behind real time the display is.
+     *
+     * @return A ReadOnlyStringProperty.
+     */
+    public ReadOnlyStringProperty statusProperty () {
+        return statusProperty.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,108 @@
+package render.assets;
+
+import contract.wrapper.Operation;
+import javafx.animation.AnimationTimer;
+import render.Visualization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesces the rendering of executed operations to the frame rate. Operations are
+ * collected as they are executed, and all operations executed since the previous pulse
+ * are rendered together using {@link Visualization#renderBatch(List)}. However fast the
+ * model executes, the visualization is updated at most once per frame.<br>
+ * <br>
+ * Must only be used on the JavaFX Application thread.
+ */
+public class RenderScheduler extends AnimationTimer {
+
+    // ============================================================= //
+    /*
+     *
+     * Field variables
+     *
+     */
+    // ============================================================= //
+
+    private final Visualization visualization;
+
+    /**
+     * Operations executed since the last pulse, in execution order.
+     */
+    private final List<Operation> pending = new ArrayList<Operation>();
+
+    // ============================================================= //
+    /*
+     *
+     * Constructors
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Create a new RenderScheduler. The scheduler must be started using {@link #start()}.
+     *
+     * @param visualization The visualization to render.
+     */
+    public RenderScheduler (Visualization visualization) {
+        this.visualization = visualization;
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Schedule executed operations for rendering on the next pulse.
+     *
+     * @param ops The executed operations.
+     */
+    public void schedule (List<Operation> ops) {
+        pending.addAll(ops);
+    }
+
+    @Override
+    public void handle (long now) {
+        flush();
+    }
+
+    /**
+     * Render all pending operations now.
+     */
+    public void flush () {
+        if (pending.isEmpty()) {
+            return;
+        }
+        visualization.renderBatch(pending);
+        pending.clear();
+    }
+
+    /**
+     * Discard all pending operations without rendering them.
+     */
+    public void clear () {
+        pending.clear();
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the number of operations waiting for the next pulse.
+     *
+     * @return The number of pending operations.
+     */
+    public int getPending () {
+        return pending.size();
+    }
+}
@@ -22,9 +22,7 @@ import render.ARender;
 import render.Visualization;
 import render.element.AVElement;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 
 /**
  * Utility class to reduce clutter.
@@ -72,52 +70,92 @@ public abstract class Tools {
      *
      */
     /**
-     * Memoization for number of nodes.
+     * Memoization for number of nodes. Row K holds the number of elements above every
+     * depth of a K-ary tree, for as long as it fits in an {@code int}. The number of
+     * elements at depth d is {@code sums[d + 1] - sums[d]}.
      */
-    public static final HashMap<Integer, ArrayList<Integer>> lowerLevelSums = new HashMap<>();
+    private static int[][] lowerLevelSums = new int[0][];
 
     /**
-     * Memoized function. Calculates the total number of elements above a given depth and
-     * saves it to higherLevelSums.
+     * Returns the memoized sums for a K-ary tree, calculating them on first use.
      *
-     * @param targetDepth The greatest depth to calculate for.
-     * @param K The number of children per node in the tree.
-     * @return The total number of elements above {@code targetDepth} for a K-ary tree.
+     * @param K The number of children per node in the tree, at least 2.
+     * @return The number of elements above every depth.
      */
-    public static int lowerLevelSum (int targetDepth, int K) {
-        ArrayList<Integer> sums = Tools.lowerLevelSums.get(K);
+    private static int[] lowerLevelSums (int K) {
+        if (K >= lowerLevelSums.length) {
+            lowerLevelSums = Arrays.copyOf(lowerLevelSums, K + 1);
+        }
+        int[] sums = lowerLevelSums[K];
 
         if (sums == null) {
-            // Start a new list.
-            sums = new ArrayList<>();
-            sums.add(0);
-            Tools.lowerLevelSums.put(K, sums);
+            int[] tmp = new int[Integer.SIZE + 1];
+            int depth = 0;
+            long sum = 0;
+            long level = 1;
+            while (sum <= Integer.MAX_VALUE) {
+                tmp[depth++] = (int) sum;
+                sum += level;
+                level *= K;
+            }
+            sums = Arrays.copyOf(tmp, depth);
+            lowerLevelSums[K] = sums;
         }
+        return sums;
+    }
 
-        int cDepth = sums.size();
-        for (; cDepth <= targetDepth; cDepth++) {
-            int prev = sums.get(cDepth - 1);
-            int cur = pow(K, cDepth - 1);
-            sums.add(prev + cur);
+    /**
+     * Memoized function. Calculates the total number of elements above a given depth.
+     * Saturates at {@link Integer#MAX_VALUE}.
+     *
+     * @param targetDepth The greatest depth to calculate for.
+     * @param K The number of children per node in the tree.
+     * @return The total number of elements above {@code targetDepth} for a K-ary tree.
+     */
+    public static int lowerLevelSum (int targetDepth, int K) {
+        if (K < 2) {
+            return targetDepth;
         }
+        int[] sums = lowerLevelSums(K);
+        return targetDepth < sums.length ? sums[targetDepth] : Integer.MAX_VALUE;
+    }
 
-        return sums.get(targetDepth);
+    /**
+     * Returns the depth of an index in a K-ary tree stored in breadth-first order, where
+     * the root has depth 0.
+     *
+     * @param index The index of an element.
+     * @param K The number of children per node in the tree, at least 2.
+     * @return The depth of {@code index}.
+     */
+    public static int depthOf (int index, int K) {
+        int[] sums = lowerLevelSums(K);
+        int i = Arrays.binarySearch(sums, index);
+        return i >= 0 ? i : -i - 2;
     }
 
     /**
-     * Calculate base^exp. No need for double as in java.lang.Math
+     * Calculate base^exp. No need for double as in java.lang.Math. Powers of a base of 2
+     * or more which fit in an {@code int} are looked up in the memoized sums.
      *
      * @param b The base.
      * @param e The exponent.
      * @return base^x
      */
     public static int pow (int b, int e) {
-        if (e == 0) {
+        if (e <= 0) {
             return 1;
         } else if (b == 1) {
             return 1;
         }
 
+        if (b >= 2) {
+            int[] sums = lowerLevelSums(b);
+            if (e + 1 < sums.length) {
+                return sums[e + 1] - sums[e];
+            }
+        }
+
         int p = 1;
         for (int i = 1; i <= e; i++) {
             p = p * b;
@@ -165,7 +203,7 @@ public abstract class Tools {
     }
 
     public static double getAdjustedX (ARender render, Element e) {
-        AVElement ave = render.getVisualMap().get(Arrays.toString(((IndexedElement) e).getIndex()));
+        AVElement ave = render.getVisualMap().get(((IndexedElement) e).getIndex());
         if (ave != null) {
             return (render.getNodeWidth() - ave.width) / 2;
         }
@@ -173,7 +211,7 @@ public abstract class Tools {
     }
 
     public static double getAdjustedY (ARender render, Element e) {
-        AVElement ave = render.getVisualMap().get(Arrays.toString(((IndexedElement) e).getIndex()));
+        AVElement ave = render.getVisualMap().get(((IndexedElement) e).getIndex());
         if (ave != null) {
             return (render.getNodeHeight() - ave.height) / 2;
         }
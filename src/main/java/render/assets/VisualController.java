@@ -33,6 +33,11 @@ public class VisualController implements OperationsExecutedListener {
      */
     private final Visualization visualization;
 
+    /**
+     * Renders the executed operations once per frame.
+     */
+    private final RenderScheduler renderScheduler;
+
     // ============================================================= //
     /*
      *
@@ -50,6 +55,8 @@ public class VisualController implements OperationsExecutedListener {
     public VisualController (ModelController executionModel, Visualization visualization) {
         this.modelController = executionModel;
         this.visualization = visualization;
+        this.renderScheduler = new RenderScheduler(visualization);
+        renderScheduler.start();
 
         executionModel.getModel().addOperationsExecutedListener(this);
     }
@@ -85,7 +92,7 @@ public class VisualController implements OperationsExecutedListener {
 
     @Override
     public void operationsExecuted (List<Operation> executedOperations) {
-        executedOperations.forEach(visualization::render);
+        renderScheduler.schedule(executedOperations);
         executedOperations.clear();
     }
 
@@ -169,6 +176,7 @@ public class VisualController implements OperationsExecutedListener {
      * @see model.ExecutionModel#reset()
      */
     public void reset () {
+        renderScheduler.clear();
         visualization.reset();
         modelController.reset();
     }
@@ -177,6 +185,7 @@ public class VisualController implements OperationsExecutedListener {
      * @see model.ExecutionModel#clear()
      */
     public void clear () {
+        renderScheduler.clear();
         visualization.clear();
         modelController.clear();
     }
@@ -5,20 +5,23 @@ import contract.datastructure.Element;
 import contract.utility.OperationCounter.OperationCounterHaver;
 import javafx.animation.RotateTransition;
 import javafx.animation.StrokeTransition;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.HPos;
 import javafx.geometry.Pos;
+import javafx.geometry.VPos;
 import javafx.scene.Cursor;
 import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Label;
-import javafx.scene.layout.GridPane;
+import javafx.scene.control.OverrunStyle;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Shape;
+import javafx.scene.transform.Rotate;
+import javafx.scene.text.TextAlignment;
 import javafx.util.Duration;
 
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -27,7 +30,12 @@ import java.util.List;
  * {@code VisualElement(Element element, ..)} constructor are bound to their elements.
  * Using the {@code VisualElement(double value, Paint style, ..)} allows the user to set
  * values manually. Attempting to set values manually on a bound element will cast an
- * exception.
+ * exception.<br>
+ * <br>
+ * The node structure is built in code and kept flat: the shape, the value label and the
+ * info label are direct children of the element, centred in its bounding box by
+ * {@link #layoutChildren()}. This used to be loaded from {@link #URL} for every element,
+ * which dominated the cost of creating large renders.
  *
  * @author Richard Sundqvist
  */
@@ -36,7 +44,12 @@ public abstract class AVElement extends Pane {
     // Should always merge into purple (255, 0, 255)!!
     public static final String DEBUG_FXML_ROOT = "-fx-background-color: rgba(255, 0, 0, 0.3); \n -fx-opacity: 0.8;";
     public static final String DEBUG_FXML_THIS = "-fx-background-color: rgba(0, 0, 255, 0.3); \n -fx-opacity: 0.8;";
+    /**
+     * The FXML layout elements were previously loaded from. No longer used by elements;
+     * kept for comparison by {@code assets.benchmark.ElementBenchmark}.
+     */
     public static final String URL = "/render/FXMLElement.fxml";
+    private static final String LABEL_STYLE = "-fx-background-color: rgba(255, 255, 255, 0.8);";
 
     /**
      * Enum indicating the shape of this polygon. Used by the factory.
@@ -49,20 +62,38 @@ public abstract class AVElement extends Pane {
     protected Pos infoPos;
 
     /**
-     * The element this VisualElement represents.
+     * The element this VisualElement represents. Changed by {@link #rebind(Element)}.
      */
-    protected final Element element;
+    protected Element element;
     /**
      * Extra info label for stuff such as index.
      */
     protected final Label infoLabel = new Label();
-    /*
-     * FXML elements.
+    /**
+     * The shape holding the value, created by {@link #createShape()}.
      */
     protected Shape shape;
+    /**
+     * Label showing the value.
+     */
+    protected final Label valueLabel = new Label();
+
+    /**
+     * Size of the info text, measured by {@link #setInfoPos(Pos)}.
+     */
+    private String measuredText;
+    private double measuredWidth, measuredHeight;
 
-    protected Label valueLabel;
-    protected GridPane root;
+    /**
+     * Requested state of the labels. Whether they are shown also depends on
+     * {@link #detailed}.
+     */
+    private boolean ghost;
+    private boolean infoVisible = true;
+    /**
+     * If false, labels, stroke and mouse events are switched off.
+     */
+    private boolean detailed = true;
 
     /**
      * Bounding width of the node.
@@ -152,41 +183,50 @@ public abstract class AVElement extends Pane {
      * Create a shape to use as the holder of the element value;
      */
     public void createShape () {
-        root.setPrefSize(width, height);
+        setPrefSize(width, height);
     }
 
     private void init (double node_width, double node_height) {
-
-        FXMLLoader fxmlLoader = new FXMLLoader(this.getClass().getResource(URL));
-        fxmlLoader.setController(this);
-
-        try {
-            root = fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.exit(-1);
-        }
         height = node_height;
         width = node_width;
         if (Debug.ERR) {
-            root.setStyle(DEBUG_FXML_ROOT);
             setStyle(DEBUG_FXML_THIS);
         }
 
-        // Container for the value
-        Pane shapePane = (Pane) fxmlLoader.getNamespace().get("shape");
-        shapePane.setCursor(Cursor.HAND);
+        // The whole bounding box reacts to the mouse, as the shape pane used to.
+        setCursor(Cursor.HAND);
+        setPickOnBounds(true);
+        setOnMouseClicked(event -> onMouseClicked());
+        setOnMouseEntered(event -> onMouseEntered());
+        setOnMouseExited(event -> onMouseExited());
+
         createShape();
         shape.setPickOnBounds(true);
-        shapePane.setPickOnBounds(true);
-        shapePane.getChildren().add(shape);
 
-        valueLabel = (Label) fxmlLoader.getNamespace().get("value");
+        valueLabel.setAlignment(Pos.CENTER);
+        valueLabel.setContentDisplay(ContentDisplay.TOP);
+        valueLabel.setEllipsisString("");
+        valueLabel.setTextOverrun(OverrunStyle.CLIP);
+        valueLabel.setTextAlignment(TextAlignment.CENTER);
+        valueLabel.setFocusTraversable(false);
+        valueLabel.setMouseTransparent(true);
+        valueLabel.setStyle(LABEL_STYLE);
 
         infoLabel.setMouseTransparent(true);
-        infoLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8);");
-        root.getChildren().add(infoLabel);
-        getChildren().add(root);
+        infoLabel.setStyle(LABEL_STYLE);
+        getChildren().addAll(shape, valueLabel, infoLabel);
+    }
+
+    /**
+     * Centre the children in the bounding box. The value label is clipped to the box,
+     * while the info label keeps its preferred size.
+     */
+    @Override
+    protected void layoutChildren () {
+        positionInArea(shape, 0, 0, width, height, 0, HPos.CENTER, VPos.CENTER);
+        layoutInArea(valueLabel, 0, 0, width, height, 0, HPos.CENTER, VPos.CENTER);
+        infoLabel.autosize();
+        positionInArea(infoLabel, 0, 0, width, height, 0, HPos.CENTER, VPos.CENTER);
     }
 
     /**
@@ -216,6 +256,16 @@ public abstract class AVElement extends Pane {
             System.out.println("w = " + width + ", h = " + height);
         }
 
+        elementClicked(element);
+    }
+
+    /**
+     * Show the statistics of a clicked element. Called for elements drawn without a
+     * VisualElement of their own as well.
+     *
+     * @param element The element which was clicked.
+     */
+    public static void elementClicked (Element element) {
         // TODO Callback mechanism
         List<String> strList = OperationCounterHaver.printStatistics(element);
         System.out.println("Statistics for \"" + element + "\":");
@@ -264,8 +314,8 @@ public abstract class AVElement extends Pane {
         // this.setStyle(null);
         // }
 
-        root.setScaleX(1.20);
-        root.setScaleY(1.20);
+        setScaleX(1.20);
+        setScaleY(1.20);
         toFront();
     }
 
@@ -273,8 +323,8 @@ public abstract class AVElement extends Pane {
      * Listener for the onMouseExited event.
      */
     public void onMouseExited () {
-        root.setScaleX(1);
-        root.setScaleY(1);
+        setScaleX(1);
+        setScaleY(1);
         shape.setStrokeWidth(1);
     }
 
@@ -285,21 +335,76 @@ public abstract class AVElement extends Pane {
      * @param ghost The new value.
      */
     public void setGhost (boolean ghost) {
-        if (ghost != valueLabel.isVisible()) {
+        if (ghost == this.ghost) {
             return; // Ghost status not changed.
         }
+        this.ghost = ghost;
         if (ghost) {
-            setMouseTransparent(true);
             shape.fillProperty().unbind();
             shape.setFill(Color.TRANSPARENT);
             shape.getStrokeDashArray().addAll(5.0);
-            valueLabel.setVisible(false);
         } else {
-            setMouseTransparent(false);
             shape.fillProperty().bind(element.fillProperty);
             shape.getStrokeDashArray().clear();
-            valueLabel.setVisible(true);
         }
+        setMouseTransparent(ghost || !detailed);
+        valueLabel.setVisible(detailed && !ghost);
+    }
+
+    /**
+     * Switch the details of this element on or off. Without details, only the filled shape
+     * is drawn: the labels and stroke are hidden and mouse events are ignored. Used by
+     * renders when elements are too small on screen for details to be legible.
+     *
+     * @param detailed The new detail setting.
+     */
+    public void setDetailed (boolean detailed) {
+        if (detailed == this.detailed) {
+            return;
+        }
+        this.detailed = detailed;
+        valueLabel.setVisible(detailed && !ghost);
+        infoLabel.setVisible(detailed && infoVisible);
+        shape.setStroke(detailed ? Color.BLACK : null);
+        setMouseTransparent(ghost || !detailed);
+    }
+
+    /**
+     * Returns {@code true} if the details of this element are shown.
+     *
+     * @return The detail setting.
+     */
+    public boolean isDetailed () {
+        return detailed;
+    }
+
+    /**
+     * Bind this node to a different element, for reuse by an {@link AVElementPool}. The
+     * node is reset to the state of a freshly created one, apart from its size and info
+     * label.
+     *
+     * @param element The element to bind to.
+     */
+    public void rebind (Element element) {
+        unbind();
+        this.element = element;
+        setGhost(false);
+
+        // Undo what animations and mouse events may have left behind.
+        setRotate(0);
+        setRotationAxis(Rotate.Z_AXIS);
+        setScaleX(1);
+        setScaleY(1);
+        setTranslateX(0);
+        setTranslateY(0);
+        setOpacity(1);
+        setVisible(true);
+        shape.setRotate(0);
+        shape.setStrokeWidth(1);
+        shape.setStroke(detailed ? Color.BLACK : null);
+
+        valueLabel.textProperty().bind(element.stringProperty);
+        shape.fillProperty().bind(element.fillProperty);
     }
 
     /**
@@ -319,13 +424,23 @@ public abstract class AVElement extends Pane {
         setInfoText(Arrays.toString(array));
     }
 
+    /**
+     * Returns the current position of the info label.
+     *
+     * @return The position of the info label, or {@code null} if hidden.
+     */
+    public Pos getInfoPos () {
+        return infoPos;
+    }
+
     /**
      * Enables and disables visibility for the info label.
      *
      * @param visible The new visibility setting.
      */
     public void setInfoVisible (boolean visible) {
-        infoLabel.setVisible(visible);
+        infoVisible = visible;
+        infoLabel.setVisible(visible && detailed);
     }
 
     /**
@@ -362,12 +477,17 @@ public abstract class AVElement extends Pane {
             return;
         }
 
-        Label tmp = new Label(text);
+        if (!text.equals(measuredText)) {
+            Label tmp = new Label(text);
 
-        new Scene(new Group(tmp));
-        tmp.applyCss();
-        final double textW = tmp.getLayoutBounds().getWidth();
-        final double textH = tmp.getLayoutBounds().getHeight() / 2;
+            new Scene(new Group(tmp));
+            tmp.applyCss();
+            measuredText = text;
+            measuredWidth = tmp.getLayoutBounds().getWidth();
+            measuredHeight = tmp.getLayoutBounds().getHeight() / 2;
+        }
+        final double textW = measuredWidth;
+        final double textH = measuredHeight;
 
         double tx = 0;
         double ty = 0;
@@ -427,8 +547,8 @@ public abstract class AVElement extends Pane {
 
     /**
      * Adjust the size of the Shape used to display the value of this AVElement, as well
-     * as the root. The default implementation of this method only changes the size of the
-     * root.
+     * as the bounding box. The default implementation of this method only changes the size
+     * of the bounding box.
      *
      * @param newWidth The new width.
      * @param newHeight The new height.
@@ -444,6 +564,7 @@ public abstract class AVElement extends Pane {
             setLayoutY(getLayoutY() + (height - newHeight) / 2);
             height = newHeight;
         }
-        root.setPrefSize(width, height);
+        setPrefSize(width, height);
+        requestLayout();
     }
 }
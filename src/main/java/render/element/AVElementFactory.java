@@ -239,6 +239,7 @@ public abstract class AVElementFactory {
                 clone = polygon(orig.element, orig.width, orig.height, orig.points);
             }
         }
+        clone.setDetailed(orig.isDetailed());
 
         return clone;
     }
@@ -0,0 +1,100 @@
+package render.element;
+
+import contract.datastructure.Element;
+import javafx.scene.Node;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+
+/**
+ * Keeps the element nodes of a render between repaints, so that they can be bound to new
+ * elements instead of being created again. Nodes are handed out in the order they were
+ * released, so a repaint of an unchanged structure gives every element back the node it
+ * had before.<br>
+ * <br>
+ * Only bound elements are pooled. Polygons cannot be resized and are only reused at the
+ * size they were created with.
+ */
+public class AVElementPool {
+
+    private final EnumMap<ElementShape, ArrayDeque<AVElement>> free = new EnumMap<ElementShape, ArrayDeque<AVElement>>(
+            ElementShape.class);
+    private int size;
+
+    /**
+     * Return the element nodes among {@code nodes} to the pool. Other nodes are ignored.
+     *
+     * @param nodes The nodes to release.
+     */
+    public void release (Iterable<? extends Node> nodes) {
+        for (Node node : nodes) {
+            if (node instanceof AVElement) {
+                release((AVElement) node);
+            }
+        }
+    }
+
+    /**
+     * Return a node to the pool. The node is unbound from its element.
+     *
+     * @param ave The node to release.
+     */
+    public void release (AVElement ave) {
+        if (ave.element == null || ave.elemShape == null) {
+            return; // Unbound or built outside the factory.
+        }
+        ave.unbind();
+        free.computeIfAbsent(ave.elemShape, shape -> new ArrayDeque<AVElement>()).add(ave);
+        size++;
+    }
+
+    /**
+     * Take a node of the given shape from the pool, bound to {@code e} and resized.
+     *
+     * @param shape The shape of the node.
+     * @param e The element to bind to.
+     * @param width The width of the node.
+     * @param height The height of the node.
+     * @return A node, or {@code null} if there is no node of this shape in the pool.
+     */
+    public AVElement acquire (ElementShape shape, Element e, double width, double height) {
+        ArrayDeque<AVElement> nodes = shape == null ? null : free.get(shape);
+        if (nodes == null) {
+            return null;
+        }
+
+        AVElement ave;
+        while ((ave = nodes.poll()) != null) {
+            size--;
+            if (ave.points == null || ave.width == width && ave.height == height) {
+                break;
+            }
+        }
+        if (ave == null) {
+            return null;
+        }
+
+        ave.rebind(e);
+        if (ave.width != width || ave.height != height) {
+            ave.setSize(width, height);
+        }
+        return ave;
+    }
+
+    /**
+     * Discard all nodes in the pool.
+     */
+    public void clear () {
+        free.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of nodes in the pool.
+     *
+     * @return The number of nodes in the pool.
+     */
+    public int size () {
+        return size;
+    }
+}
@@ -37,4 +37,12 @@ public class SingleElement extends RectangleElement {
         rect.setArcHeight(height / 3);
     }
 
+    @Override
+    public void setSize (double newWidth, double newHeight) {
+        super.setSize(newWidth, newHeight);
+        Rectangle rect = (Rectangle) shape;
+        rect.setArcWidth(width / 3);
+        rect.setArcHeight(height / 3);
+    }
+
 }
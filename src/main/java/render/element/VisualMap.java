@@ -0,0 +1,312 @@
+package render.element;
+
+import contract.datastructure.Element;
+import contract.datastructure.IndexedElement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Maps the indices of elements to the nodes drawing them. Indices are linearised in
+ * row-major order into a dense array, so lookups neither allocate nor hash. The extent of
+ * every dimension grows as larger indices are added, and can be reserved up front using
+ * {@link #reserve(int[])}.<br>
+ * <br>
+ * The number of dimensions is set by the first index added. Indices with another number of
+ * dimensions, or with negative coordinates, are kept in a map keyed by
+ * {@link Arrays#toString(int[])} instead, so that they never share a slot with another
+ * index.
+ */
+public class VisualMap {
+
+    private AVElement[] nodes = new AVElement[16];
+    /**
+     * The index of every node, as given to {@link #put(int[], AVElement)}.
+     */
+    private int[][] keys = new int[16][];
+
+    /**
+     * The extent of every dimension, and the distance between consecutive indices in it.
+     */
+    private int[] extent = new int[0];
+    private int[] stride = new int[0];
+    private int size;
+
+    /**
+     * Nodes for indices which do not fit the dense array.
+     */
+    private final HashMap<String, AVElement> others = new HashMap<String, AVElement>();
+
+    // ============================================================= //
+    /*
+     *
+     * Control
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the node for an index.
+     *
+     * @param index The index of an element.
+     * @return The node for the index, or {@code null} if there is none.
+     */
+    public AVElement get (int[] index) {
+        if (!fits(index)) {
+            return others.get(Arrays.toString(index));
+        }
+        int i = linear(index);
+        return i < 0 ? null : nodes[i];
+    }
+
+    /**
+     * Returns the node for a one-dimensional index.
+     *
+     * @param index The index of an element.
+     * @return The node for the index, or {@code null} if there is none.
+     */
+    public AVElement get (int index) {
+        if (index < 0 || extent.length != 1) {
+            return others.isEmpty() ? null : get(new int[]{index});
+        }
+        return index < extent[0] ? nodes[index] : null;
+    }
+
+    /**
+     * Returns the node for an element.
+     *
+     * @param e An indexed element.
+     * @return The node for the element, or {@code null} if there is none.
+     */
+    public AVElement get (Element e) {
+        return e instanceof IndexedElement ? get(((IndexedElement) e).getIndex()) : null;
+    }
+
+    /**
+     * Returns {@code true} if there is a node for an index.
+     *
+     * @param index The index of an element.
+     * @return {@code true} if there is a node for the index.
+     */
+    public boolean contains (int[] index) {
+        return get(index) != null;
+    }
+
+    /**
+     * Set the node for an index. The array is kept and must not be changed.
+     *
+     * @param index The index of an element.
+     * @param ave The node for the index.
+     */
+    public void put (int[] index, AVElement ave) {
+        if (index.length > 0 && denseSize() == 0 && index.length != extent.length && !negative(index)) {
+            layout(index.length); // Nothing stored yet - adopt the dimensions of the index.
+        }
+        if (!fits(index)) {
+            if (others.put(Arrays.toString(index), ave) == null) {
+                size++;
+            }
+            return;
+        }
+        int i = linear(index);
+        if (i < 0) {
+            grow(index);
+            i = linear(index);
+        }
+        if (nodes[i] == null) {
+            size++;
+        }
+        nodes[i] = ave;
+        keys[i] = index;
+    }
+
+    /**
+     * Remove the node for an index.
+     *
+     * @param index The index of an element.
+     * @return The removed node, or {@code null} if there was none.
+     */
+    public AVElement remove (int[] index) {
+        if (!fits(index)) {
+            AVElement ave = others.remove(Arrays.toString(index));
+            if (ave != null) {
+                size--;
+            }
+            return ave;
+        }
+        int i = linear(index);
+        if (i < 0 || nodes[i] == null) {
+            return null;
+        }
+        AVElement ave = nodes[i];
+        nodes[i] = null;
+        keys[i] = null;
+        size--;
+        return ave;
+    }
+
+    /**
+     * Remove all nodes. The reserved extent is kept.
+     */
+    public void clear () {
+        if (denseSize() > 0) {
+            Arrays.fill(nodes, null);
+            Arrays.fill(keys, null);
+        }
+        others.clear();
+        size = 0;
+    }
+
+    /**
+     * Make room for indices up to, but not including, {@code sizes} without growing
+     * later. Does nothing for {@code null}.
+     *
+     * @param sizes The size of every dimension.
+     */
+    public void reserve (int[] sizes) {
+        if (sizes == null || sizes.length == 0) {
+            return;
+        }
+        if (sizes.length != extent.length) {
+            if (denseSize() > 0) {
+                return; // Nodes of other dimensions are stored.
+            }
+            layout(sizes.length);
+        }
+        int[] last = new int[sizes.length];
+        for (int d = 0; d < sizes.length; d++) {
+            last[d] = Math.max(0, sizes[d] - 1);
+        }
+        if (linear(last) < 0) {
+            grow(last);
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Utility
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns {@code true} if an index belongs in the dense array, that is if it has the
+     * same number of dimensions and no negative coordinates.
+     */
+    private boolean fits (int[] index) {
+        return index.length == extent.length && index.length > 0 && !negative(index);
+    }
+
+    private static boolean negative (int[] index) {
+        for (int coordinate : index) {
+            if (coordinate < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of nodes in the dense array.
+     */
+    private int denseSize () {
+        return size - others.size();
+    }
+
+    /**
+     * Start over with an empty extent of {@code dimensions} dimensions. Must only be called
+     * when the dense array is empty.
+     */
+    private void layout (int dimensions) {
+        extent = new int[dimensions];
+        stride = new int[dimensions];
+    }
+
+    /**
+     * Returns the position of an index in {@link #nodes}, or {@code -1} if it lies
+     * outside the current extent. The index must {@link #fits(int[]) fit}.
+     */
+    private int linear (int[] index) {
+        int i = 0;
+        for (int d = 0; d < index.length; d++) {
+            if (index[d] < 0 || index[d] >= extent[d]) {
+                return -1;
+            }
+            i += index[d] * stride[d];
+        }
+        return i;
+    }
+
+    /**
+     * Extend the dimensions to include {@code index}, which must {@link #fits(int[]) fit}.
+     * Growing the first dimension only extends the arrays, while growing any other
+     * dimension changes the strides and moves every node.
+     */
+    private void grow (int[] index) {
+        int dimensions = extent.length;
+        int[] newExtent = Arrays.copyOf(extent, dimensions);
+        boolean restride = false;
+        for (int d = 0; d < dimensions; d++) {
+            newExtent[d] = Math.max(newExtent[d], 1);
+            if (index[d] >= newExtent[d]) {
+                // Inner dimensions double, so that filling a row does not restride per index.
+                newExtent[d] = d == 0 ? index[d] + 1 : Math.max(index[d] + 1, newExtent[d] * 2);
+                restride |= d > 0;
+            }
+        }
+
+        int[] newStride = new int[dimensions];
+        int capacity = 1;
+        for (int d = dimensions - 1; d >= 0; d--) {
+            newStride[d] = capacity;
+            capacity *= newExtent[d];
+        }
+
+        AVElement[] oldNodes = nodes;
+        int[][] oldKeys = keys;
+        extent = newExtent;
+        stride = newStride;
+        if (restride) {
+            nodes = new AVElement[Math.max(capacity, oldNodes.length)];
+            keys = new int[nodes.length][];
+            for (int i = 0; i < oldNodes.length; i++) {
+                if (oldNodes[i] != null) {
+                    int j = linear(oldKeys[i]);
+                    nodes[j] = oldNodes[i];
+                    keys[j] = oldKeys[i];
+                }
+            }
+        } else if (capacity > nodes.length) {
+            int length = Math.max(capacity, nodes.length + (nodes.length >> 1));
+            nodes = Arrays.copyOf(nodes, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+    }
+
+    // ============================================================= //
+    /*
+     *
+     * Getters
+     *
+     */
+    // ============================================================= //
+
+    /**
+     * Returns the number of nodes in the map.
+     *
+     * @return The number of nodes.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the map is empty.
+     *
+     * @return {@code true} if there are no nodes.
+     */
+    public boolean isEmpty () {
+        return size == 0;
+    }
+}